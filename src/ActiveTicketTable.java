@@ -0,0 +1,348 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Active tickets of one lot stored column-wise in primitive arrays.
+ *
+ * A spot holds at most one vehicle, so the spot index doubles as the ticket
+ * slot: plate key, vehicle type, entry time, owner and ticket number live in
+ * parallel arrays sized to the lot, and two primitive indexes map ticket
+ * numbers and plates back to spots. Owners are interned with reference
+ * counts. Nothing is allocated per parked car once the plate and owner are
+ * known; Ticket and Vehicle objects are built on demand for API and GUI readers.
+ *
+ * Writers take the write lock; plate and ticket lookups are optimistic reads.
+ */
+public class ActiveTicketTable {
+    public static final int NO_SPOT = -1;
+
+    private static final String TICKET_PREFIX = "TKT-";
+    private static final String ANONYMOUS_OWNER = "Anonymous";
+    private static final int RESERVED = -2; // plate claimed at the gate, spot not yet assigned
+    private static final VehicleType[] TYPES = VehicleType.values();
+    private static final int INITIAL_INDEX_SIZE = 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Columns, indexed by spot
+    private final long[] ticketNumber;
+    private final long[] plateKey;
+    private final String[] unpackedPlate; // only for plates PlateKey cannot pack
+    private final byte[] type;
+    private final long[] entryMillis;     // local date-time as UTC epoch millis
+    private final int[] owner;
+
+    private final LongIntMap spotByTicket;
+    private final LongIntMap spotByPlate;
+    private final Map<String, Integer> spotByUnpackedPlate = new HashMap<>();
+
+    // Interned owners; id 0 is the anonymous owner and never freed
+    private final Map<String, Integer> ownerIds = new HashMap<>();
+    private final List<String> ownerNames = new ArrayList<>();
+    private int[] ownerRefs = new int[16];
+    private final List<Integer> freeOwnerIds = new ArrayList<>();
+
+    private int size;
+
+    public ActiveTicketTable(int spots) {
+        this.ticketNumber = new long[spots];
+        this.plateKey = new long[spots];
+        this.unpackedPlate = new String[spots];
+        this.type = new byte[spots];
+        this.entryMillis = new long[spots];
+        this.owner = new int[spots];
+        // The indexes grow with the cars actually parked, not with the size of the lot
+        this.spotByTicket = new LongIntMap(Math.min(spots, INITIAL_INDEX_SIZE));
+        this.spotByPlate = new LongIntMap(Math.min(spots, INITIAL_INDEX_SIZE));
+        ownerNames.add(ANONYMOUS_OWNER);
+    }
+
+    static String ticketId(long number) {
+        return TICKET_PREFIX + number;
+    }
+
+    /**
+     * Number in a "TKT-n" ticket ID, or 0 if the ID is not in that form
+     */
+    static long ticketNumber(String ticketId) {
+        if (ticketId == null || !ticketId.startsWith(TICKET_PREFIX) || ticketId.length() == TICKET_PREFIX.length()
+                || ticketId.length() > TICKET_PREFIX.length() + 18) {
+            return 0;
+        }
+        long n = 0;
+        for (int i = TICKET_PREFIX.length(); i < ticketId.length(); i++) {
+            char c = ticketId.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Claim the vehicle's plate before a spot is searched for
+     *
+     * @return false if the plate is already parked or being parked
+     */
+    public boolean reserve(Vehicle vehicle) {
+        long stamp = lock.writeLock();
+        try {
+            if (plateSpot(vehicle) != LongIntMap.MISSING) return false;
+            putPlate(vehicle, RESERVED);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void cancelReservation(Vehicle vehicle) {
+        long stamp = lock.writeLock();
+        try {
+            if (plateSpot(vehicle) == RESERVED) removePlate(vehicle);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Record a vehicle in a spot under a ticket number. The plate may be reserved
+     * or unknown (replayed parks); it is pointed at this spot either way.
+     */
+    public void occupy(int spot, long number, Vehicle vehicle, LocalDateTime entryTime) {
+        if (number <= 0) {
+            throw new ParkingLotException("Unsupported ticket id: " + number);
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (ticketNumber[spot] != 0) {
+                throw new ParkingLotException("Spot index " + spot + " already holds " + ticketId(ticketNumber[spot]));
+            }
+            ticketNumber[spot] = number;
+            plateKey[spot] = vehicle.getPlateKey();
+            unpackedPlate[spot] = vehicle.getPlateKey() == PlateKey.NOT_PACKABLE ? vehicle.getLicensePlate() : null;
+            type[spot] = (byte) vehicle.getVehicleType().ordinal();
+            entryMillis[spot] = toMillis(entryTime);
+            owner[spot] = internOwner(vehicle.getOwnerId());
+            spotByTicket.put(number, spot);
+            putPlate(vehicle, spot);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void vacate(int spot) {
+        long stamp = lock.writeLock();
+        try {
+            if (ticketNumber[spot] == 0) return;
+            spotByTicket.remove(ticketNumber[spot]);
+            if (plateKey[spot] != PlateKey.NOT_PACKABLE) {
+                if (spotByPlate.get(plateKey[spot]) == spot) spotByPlate.remove(plateKey[spot]);
+            } else {
+                spotByUnpackedPlate.remove(unpackedPlate[spot], spot);
+            }
+            releaseOwner(owner[spot]);
+            ticketNumber[spot] = 0;
+            unpackedPlate[spot] = null;
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Spot holding a ticket, or NO_SPOT if the ticket is not active
+     */
+    public int spotOfTicket(String ticketId) {
+        long number = ticketNumber(ticketId);
+        if (number == 0) return NO_SPOT;
+        long stamp = lock.tryOptimisticRead();
+        int spot = spotByTicket.get(number);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                spot = spotByTicket.get(number);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return spot >= 0 ? spot : NO_SPOT;
+    }
+
+    /**
+     * Spot of the vehicle with this plate as typed at a gate, or NO_SPOT
+     */
+    public int spotOfPlate(String plate) {
+        long key = PlateKey.encode(plate);
+        int spot;
+        if (key == PlateKey.NOT_PACKABLE) {
+            String normalized = Vehicle.normalizePlate(plate);
+            long stamp = lock.readLock();
+            try {
+                spot = spotByUnpackedPlate.getOrDefault(normalized, LongIntMap.MISSING);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } else {
+            long stamp = lock.tryOptimisticRead();
+            spot = spotByPlate.get(key);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    spot = spotByPlate.get(key);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+        }
+        return spot >= 0 ? spot : NO_SPOT;
+    }
+
+    /**
+     * Ticket number in a spot, or 0 if the spot is empty
+     */
+    public long ticketNumberAt(int spot) {
+        long stamp = lock.readLock();
+        try {
+            return ticketNumber[spot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Vehicle in a spot, built from the columns, or null if the spot is empty
+     */
+    public Vehicle vehicleAt(int spot) {
+        long stamp = lock.readLock();
+        try {
+            return ticketNumber[spot] == 0 ? null : materializeVehicle(spot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Active ticket in a spot, built from the columns, or null if the spot is empty
+     */
+    public Ticket ticketAt(int spot, ParkingSpot parkingSpot) {
+        long stamp = lock.readLock();
+        try {
+            if (ticketNumber[spot] == 0) return null;
+            Vehicle vehicle = materializeVehicle(spot);
+            return new Ticket(ticketId(ticketNumber[spot]), vehicle, parkingSpot, vehicle.getEntryTime());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Vehicle type parked in a spot, or null; no objects are built
+     */
+    public VehicleType typeAt(int spot) {
+        long stamp = lock.readLock();
+        try {
+            return ticketNumber[spot] == 0 ? null : TYPES[type[spot]];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Occupied spot indexes at the time of the call
+     */
+    public int[] occupiedSpots() {
+        long stamp = lock.readLock();
+        try {
+            int[] occupied = new int[size];
+            int n = 0;
+            for (int spot = 0; spot < ticketNumber.length && n < size; spot++) {
+                if (ticketNumber[spot] != 0) occupied[n++] = spot;
+            }
+            return occupied;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int n = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                n = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return n;
+    }
+
+    private Vehicle materializeVehicle(int spot) {
+        String plate = unpackedPlate[spot] != null ? unpackedPlate[spot] : PlateKey.decode(plateKey[spot]);
+        LocalDateTime entry = LocalDateTime.ofEpochSecond(Math.floorDiv(entryMillis[spot], 1000L),
+                (int) Math.floorMod(entryMillis[spot], 1000L) * 1_000_000, ZoneOffset.UTC);
+        return SmartParkingLotSimulator.createVehicle(TYPES[type[spot]], plate, ownerNames.get(owner[spot]), entry);
+    }
+
+    private int plateSpot(Vehicle vehicle) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? spotByPlate.get(key)
+                : spotByUnpackedPlate.getOrDefault(vehicle.getLicensePlate(), LongIntMap.MISSING);
+    }
+
+    private void putPlate(Vehicle vehicle, int spot) {
+        long key = vehicle.getPlateKey();
+        if (key != PlateKey.NOT_PACKABLE) {
+            spotByPlate.put(key, spot);
+        } else {
+            spotByUnpackedPlate.put(vehicle.getLicensePlate(), spot);
+        }
+    }
+
+    private void removePlate(Vehicle vehicle) {
+        long key = vehicle.getPlateKey();
+        if (key != PlateKey.NOT_PACKABLE) {
+            spotByPlate.remove(key);
+        } else {
+            spotByUnpackedPlate.remove(vehicle.getLicensePlate());
+        }
+    }
+
+    private int internOwner(String name) {
+        if (ANONYMOUS_OWNER.equals(name)) return 0;
+        Integer id = ownerIds.get(name);
+        if (id == null) {
+            if (freeOwnerIds.isEmpty()) {
+                id = ownerNames.size();
+                ownerNames.add(name);
+                if (id == ownerRefs.length) ownerRefs = Arrays.copyOf(ownerRefs, id * 2);
+            } else {
+                id = freeOwnerIds.removeLast();
+                ownerNames.set(id, name);
+            }
+            ownerIds.put(name, id);
+        }
+        ownerRefs[id]++;
+        return id;
+    }
+
+    private void releaseOwner(int id) {
+        if (id == 0) return;
+        if (--ownerRefs[id] == 0) {
+            ownerIds.remove(ownerNames.get(id));
+            ownerNames.set(id, null);
+            freeOwnerIds.add(id);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
+    }
+}
@@ -0,0 +1,300 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Snapshot of the charging site: charge points in use, sessions queued for
+ * one, the power being drawn against the site budget and energy delivered so far
+ */
+record ChargingStatus(int chargers, int charging, int waiting, double sitePowerKw, double drawKw,
+                      double energyDeliveredKwh) {
+}
+
+/**
+ * Charger and power allocation for electric cars.
+ *
+ * The site has a pool of charge points, each able to deliver up to chargerKw,
+ * and a grid connection of sitePowerKw shared by all of them. The pool is a
+ * site-level resource, not tied to bays: forLot sizes it from the layout's EV
+ * bays, but spot allocation ignores bay class, so an electric car charges
+ * wherever it parks and other vehicles may take EV bays. Every parked
+ * electric car opens a session with an energy request (from its state of
+ * charge) and an expected departure. Sessions are ranked earliest departure
+ * first, then smallest request; the best ranked sessions hold a charge point
+ * at full power, the next one gets whatever is left of the budget, and the
+ * rest wait for a charge point.
+ *
+ * Both groups are ordered sets and energy is integrated lazily from each
+ * session's power and the time it was last set. An arrival, departure,
+ * request change or finished charge only moves sessions across the boundary
+ * between the groups, so each rebalance costs O(log n) whatever the number of
+ * chargers or queued cars.
+ *
+ * Times are the lot's local date-times, taken as UTC seconds; events may come
+ * from several gates and are applied no earlier than the latest one seen.
+ */
+public class ChargingScheduler implements ParkingEventListener {
+    public static final double DEFAULT_CHARGER_KW = 11.0;
+
+    // Assumed for a car that never states its battery, state of charge or departure
+    static final double DEFAULT_BATTERY_KWH = 60.0;
+    static final double DEFAULT_ARRIVAL_SOC = 0.3;
+    static final double DEFAULT_TARGET_SOC = 0.8;
+    static final long DEFAULT_STAY_SECONDS = 4 * 3600;
+
+    private static final double SECONDS_PER_HOUR = 3600.0;
+    private static final double EPSILON_KWH = 1e-9;
+
+    private final int chargers;
+    private final double chargerKw;
+    private final double sitePowerKw;
+    private final int fullPowerSlots;
+    private final double remainderKw;
+    private final int activeSlots;
+
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final TreeSet<Session> charging = new TreeSet<>(Session.BY_PRIORITY);
+    private final TreeSet<Session> waiting = new TreeSet<>(Session.BY_PRIORITY);
+    private final TreeSet<Session> completions = new TreeSet<>(Session.BY_COMPLETION);
+    private Session partial; // the charging session on the leftover budget, if any
+    private long nextSequence;
+
+    private double now = Double.NEGATIVE_INFINITY;
+    private double drawKw;
+    private double settledEnergyKwh;
+    private double settledAt;
+
+    public ChargingScheduler(int chargers, double chargerKw, double sitePowerKw) {
+        if (chargers < 0 || !(chargerKw > 0) || !(sitePowerKw >= 0)) {
+            throw new IllegalArgumentException("Invalid charging site: " + chargers + " x " + chargerKw
+                    + " kW on " + sitePowerKw + " kW");
+        }
+        this.chargers = chargers;
+        this.chargerKw = chargerKw;
+        this.sitePowerKw = sitePowerKw;
+        this.fullPowerSlots = (int) Math.min(chargers, Math.floor(sitePowerKw / chargerKw));
+        double left = sitePowerKw - fullPowerSlots * chargerKw;
+        this.remainderKw = fullPowerSlots < chargers && left > EPSILON_KWH ? left : 0;
+        this.activeSlots = fullPowerSlots + (remainderKw > 0 ? 1 : 0);
+    }
+
+    /**
+     * A site sized for a lot: as many charge points as EV bays, or one per ten
+     * spots when the layout has no EV bays, and a grid connection for half of
+     * them at full power. The bays only size the pool; sessions do not hold them.
+     */
+    public static ChargingScheduler forLot(LotLayout layout) {
+        int evBays = layout.countOf(BayClass.EV);
+        int chargers = evBays > 0 ? evBays : Math.max(1, layout.getSpotCount() / 10);
+        return new ChargingScheduler(chargers, DEFAULT_CHARGER_KW, chargers * DEFAULT_CHARGER_KW / 2);
+    }
+
+    @Override
+    public void onVehicleParked(Ticket ticket) {
+        if (ticket.getVehicle().getVehicleType() != VehicleType.ELECTRIC_CAR) return;
+        LocalDateTime entry = ticket.getEntryTime();
+        startSession(ticket.getTicketId(), entry,
+                DEFAULT_BATTERY_KWH * (DEFAULT_TARGET_SOC - DEFAULT_ARRIVAL_SOC),
+                entry.plusSeconds(DEFAULT_STAY_SECONDS));
+    }
+
+    synchronized void startSession(String ticketId, LocalDateTime at, double energyKwh, LocalDateTime departure) {
+        advance(seconds(at));
+        if (sessions.containsKey(ticketId)) return;
+        Session session = new Session(ticketId, nextSequence++, seconds(departure), energyKwh);
+        sessions.put(ticketId, session);
+        enqueue(session);
+    }
+
+    /**
+     * Replace a session's request with the driver's battery size, current and
+     * target state of charge (0-1) and expected departure. Energy already
+     * delivered stays delivered; the new request is on top of it.
+     */
+    public synchronized void requestCharge(String ticketId, LocalDateTime at, double batteryKwh,
+                                           double stateOfCharge, double targetStateOfCharge, LocalDateTime departure) {
+        if (!(batteryKwh > 0) || !(stateOfCharge >= 0) || !(targetStateOfCharge <= 1)
+                || stateOfCharge > targetStateOfCharge) {
+            throw new IllegalArgumentException("Charge request needs 0 <= state of charge <= target <= 1 "
+                    + "and a positive battery size");
+        }
+        Session session = sessions.get(ticketId);
+        if (session == null) throw new InvalidTicketException(ticketId);
+        advance(seconds(at));
+
+        dequeue(session);
+        session.settle(now);
+        session.requestedKwh = session.deliveredKwh + batteryKwh * (targetStateOfCharge - stateOfCharge);
+        session.departure = seconds(departure);
+        enqueue(session);
+    }
+
+    /**
+     * Close a session when its car leaves and free its charge point
+     *
+     * @return energy delivered in kWh, or 0 if the ticket had no session
+     */
+    public synchronized double finishSession(String ticketId, LocalDateTime at) {
+        advance(seconds(at));
+        Session session = sessions.remove(ticketId);
+        if (session == null) return 0;
+        dequeue(session);
+        session.settle(now);
+        return session.deliveredKwh;
+    }
+
+    /**
+     * Energy delivered to a session so far, or 0 if the ticket has none
+     */
+    public synchronized double energyDelivered(String ticketId, LocalDateTime at) {
+        advance(seconds(at));
+        Session session = sessions.get(ticketId);
+        if (session == null) return 0;
+        session.settle(now);
+        return session.deliveredKwh;
+    }
+
+    /**
+     * Power currently allocated to a session in kW; 0 while queued or once its request is met
+     */
+    public synchronized double powerOf(String ticketId, LocalDateTime at) {
+        advance(seconds(at));
+        Session session = sessions.get(ticketId);
+        return session == null ? 0 : session.powerKw;
+    }
+
+    public synchronized ChargingStatus getStatus(LocalDateTime at) {
+        advance(seconds(at));
+        settleSite(now);
+        return new ChargingStatus(chargers, charging.size(), waiting.size(), sitePowerKw, drawKw, settledEnergyKwh);
+    }
+
+    /**
+     * Bring the schedule up to a time, finishing every charge that completes
+     * before it in order and handing its charge point on
+     */
+    private void advance(double time) {
+        if (time <= now) return;
+        while (!completions.isEmpty() && completions.first().completion <= time) {
+            Session done = completions.first();
+            now = done.completion;
+            dequeue(done);
+            done.settle(now);
+            done.deliveredKwh = done.requestedKwh;
+        }
+        now = time;
+    }
+
+    /**
+     * Put a session in its place: into the charging group if it outranks the
+     * worst charging session (which then goes back to waiting), else into the queue
+     */
+    private void enqueue(Session session) {
+        session.since = now;
+        if (session.requestedKwh - session.deliveredKwh <= EPSILON_KWH) {
+            return; // nothing to charge; the session only records delivered energy
+        }
+        session.rankKwh = session.requestedKwh - session.deliveredKwh;
+        if (charging.size() < activeSlots) {
+            charging.add(session);
+            setPower(session, chargerKw);
+        } else if (activeSlots > 0 && Session.BY_PRIORITY.compare(session, charging.last()) < 0) {
+            Session bumped = charging.pollLast();
+            setPower(bumped, 0);
+            waiting.add(bumped);
+            charging.add(session);
+            setPower(session, chargerKw);
+        } else {
+            waiting.add(session);
+        }
+        fixPartial();
+    }
+
+    private void dequeue(Session session) {
+        if (waiting.remove(session)) return;
+        if (!charging.remove(session)) return;
+        setPower(session, 0);
+        if (!waiting.isEmpty()) {
+            Session promoted = waiting.pollFirst();
+            charging.add(promoted);
+            setPower(promoted, chargerKw);
+        }
+        fixPartial();
+    }
+
+    /**
+     * Only the lowest ranked charging session, when every charge point slot is
+     * taken, runs on the leftover budget; everything above it runs at full power
+     */
+    private void fixPartial() {
+        Session target = remainderKw > 0 && charging.size() == activeSlots ? charging.last() : null;
+        if (target == partial) return;
+        if (partial != null && charging.contains(partial)) {
+            setPower(partial, chargerKw);
+        }
+        partial = target;
+        if (target != null) {
+            setPower(target, remainderKw);
+        }
+    }
+
+    private void setPower(Session session, double powerKw) {
+        if (session.powerKw == powerKw) return;
+        settleSite(now);
+        session.settle(now);
+        completions.remove(session);
+        drawKw += powerKw - session.powerKw;
+        session.powerKw = powerKw;
+        if (powerKw > 0) {
+            double remaining = Math.max(0, session.requestedKwh - session.deliveredKwh);
+            session.completion = now + remaining / powerKw * SECONDS_PER_HOUR;
+            completions.add(session);
+        }
+    }
+
+    private void settleSite(double time) {
+        if (drawKw > 0 && time > settledAt) {
+            settledEnergyKwh += drawKw * (time - settledAt) / SECONDS_PER_HOUR;
+        }
+        settledAt = time;
+    }
+
+    private static double seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) + time.getNano() / 1e9;
+    }
+
+    private static final class Session {
+        static final Comparator<Session> BY_PRIORITY = Comparator.<Session>comparingDouble(s -> s.departure)
+                .thenComparingDouble(s -> s.rankKwh)
+                .thenComparingLong(s -> s.sequence);
+        static final Comparator<Session> BY_COMPLETION = Comparator.<Session>comparingDouble(s -> s.completion)
+                .thenComparingLong(s -> s.sequence);
+
+        final String ticketId;
+        final long sequence;
+        double departure;
+        double requestedKwh;
+        double deliveredKwh;
+        double rankKwh; // energy still wanted when queued; fixed while in a set
+        double powerKw;
+        double since;
+        double completion;
+
+        Session(String ticketId, long sequence, double departure, double requestedKwh) {
+            this.ticketId = ticketId;
+            this.sequence = sequence;
+            this.departure = departure;
+            this.requestedKwh = requestedKwh;
+        }
+
+        void settle(double time) {
+            if (powerKw > 0 && time > since) {
+                deliveredKwh = Math.min(requestedKwh, deliveredKwh + powerKw * (time - since) / SECONDS_PER_HOUR);
+            }
+            since = time;
+        }
+    }
+}
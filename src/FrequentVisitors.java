@@ -0,0 +1,274 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Count-min sketch over 64-bit key hashes with conservative update. Rows are
+ * derived from one hash by double hashing, so a key costs one hash and
+ * depth array touches. Estimates never undercount. Sketches of the same shape
+ * can feed a total sketch that holds the sum of their counters.
+ */
+final class CountMinSketch {
+    private final int depth;
+    private final int mask;
+    private final int[][] counts;
+
+    CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two: " + width);
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counts = new int[depth][width];
+    }
+
+    /**
+     * Count one occurrence, add every counter raise to total, and return the
+     * new estimate
+     */
+    int add(long hash, CountMinSketch total) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][(h1 + row * h2) & mask]);
+        }
+        // Conservative update: only raise counters that are at the minimum
+        int updated = estimate + 1;
+        for (int row = 0; row < depth; row++) {
+            int[] r = counts[row];
+            int i = (h1 + row * h2) & mask;
+            if (r[i] < updated) {
+                total.counts[row][i] += updated - r[i];
+                r[i] = updated;
+            }
+        }
+        return updated;
+    }
+
+    int estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][(h1 + row * h2) & mask]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Take this sketch's counters back out of total and clear them
+     */
+    void clear(CountMinSketch total) {
+        for (int row = 0; row < depth; row++) {
+            int[] r = counts[row];
+            int[] t = total.counts[row];
+            for (int i = 0; i < r.length; i++) {
+                t[i] -= r[i];
+            }
+            Arrays.fill(r, 0);
+        }
+    }
+}
+
+/**
+ * Bounded set of heavy-hitter candidates ordered by their sketch estimate.
+ * A key enters when it beats the weakest candidate, so memory stays at capacity.
+ */
+final class HeavyHitters {
+    private final int capacity;
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final TreeSet<String> byCount;
+
+    HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.byCount = new TreeSet<>((a, b) -> {
+            int c = Integer.compare(counts.get(a), counts.get(b));
+            return c != 0 ? c : a.compareTo(b);
+        });
+    }
+
+    void offer(String key, int estimate) {
+        if (counts.containsKey(key)) {
+            byCount.remove(key);
+            counts.put(key, estimate);
+            byCount.add(key);
+        } else if (counts.size() < capacity) {
+            counts.put(key, estimate);
+            byCount.add(key);
+        } else if (estimate > counts.get(byCount.first())) {
+            counts.remove(byCount.pollFirst());
+            counts.put(key, estimate);
+            byCount.add(key);
+        }
+    }
+
+    Set<String> keys() {
+        return counts.keySet();
+    }
+
+    /**
+     * Replace every candidate's count, dropping those that fall to zero
+     */
+    void rescore(ToIntFunction<String> estimate) {
+        List<String> keys = new ArrayList<>(counts.keySet());
+        clear();
+        for (String key : keys) {
+            int count = estimate.applyAsInt(key);
+            if (count > 0) {
+                counts.put(key, count);
+                byCount.add(key);
+            }
+        }
+    }
+
+    void clear() {
+        byCount.clear();
+        counts.clear();
+    }
+}
+
+/**
+ * A plate or owner with its estimated number of visits in a window
+ */
+record VisitorCount(String key, int visits) {
+}
+
+/**
+ * Streaming frequent-visitor detection by plate and by owner.
+ *
+ * Every completed visit (a release) updates a count-min sketch and a
+ * heavy-hitter candidate set for the day it ended, in a ring of one bucket
+ * per day. A second candidate set covers the whole ring, ranked by a ring
+ * sketch holding the sum of the live days' counters, so a plate seen once a
+ * day for weeks stays a candidate even on days crowded with one-off visitors;
+ * a day's counters leave the ring sketch, and the candidates are rescored,
+ * when it drops out of the ring. A window of the last N days
+ * unions its days' candidates with the ring's and ranks them by their summed
+ * sketch estimates. Memory is fixed by the ring length, sketch size and
+ * candidate capacities, however many tickets pass.
+ */
+public class FrequentVisitors implements ParkingEventListener {
+    public static final int MAX_WINDOW_DAYS = 31;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1 << 11;
+    private static final int CANDIDATES_PER_DAY = 128;
+    private static final int CANDIDATES_PER_RING = 1024;
+    private static final String ANONYMOUS_OWNER = "Anonymous";
+
+    private final DayBucket[] days = new DayBucket[MAX_WINDOW_DAYS];
+    private final CountMinSketch ringPlateSketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+    private final CountMinSketch ringOwnerSketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+    private final HeavyHitters ringPlates = new HeavyHitters(CANDIDATES_PER_RING);
+    private final HeavyHitters ringOwners = new HeavyHitters(CANDIDATES_PER_RING);
+    private long latestDay = Long.MIN_VALUE;
+
+    public FrequentVisitors() {
+        for (int i = 0; i < days.length; i++) {
+            days[i] = new DayBucket();
+        }
+    }
+
+    @Override
+    public void onVehicleReleased(Ticket ticket) {
+        record(ticket.getExitTime().toLocalDate().toEpochDay(),
+                ticket.getVehicle().getLicensePlate(), ticket.getVehicle().getOwnerId());
+    }
+
+    private synchronized void record(long epochDay, String plate, String owner) {
+        DayBucket bucket = days[(int) Math.floorMod(epochDay, (long) MAX_WINDOW_DAYS)];
+        if (bucket.epochDay != epochDay) {
+            if (epochDay < bucket.epochDay) {
+                return; // older than the ring
+            }
+            if (epochDay > latestDay) {
+                latestDay = epochDay;
+                retireExpiredDays();
+            }
+            bucket.reset(epochDay, ringPlateSketch, ringOwnerSketch);
+        }
+        long plateHash = PlateHash.hash64(plate);
+        bucket.plates.offer(plate, bucket.plateSketch.add(plateHash, ringPlateSketch));
+        ringPlates.offer(plate, ringPlateSketch.estimate(plateHash));
+        if (!ANONYMOUS_OWNER.equals(owner)) {
+            long ownerHash = PlateHash.hash64(owner);
+            bucket.owners.offer(owner, bucket.ownerSketch.add(ownerHash, ringOwnerSketch));
+            ringOwners.offer(owner, ringOwnerSketch.estimate(ownerHash));
+        }
+    }
+
+    /**
+     * Take every day that fell out of the ring out of the ring sketches and
+     * rescore the ring candidates against what remains
+     */
+    private void retireExpiredDays() {
+        for (DayBucket bucket : days) {
+            if (bucket.epochDay != Long.MIN_VALUE && bucket.epochDay <= latestDay - MAX_WINDOW_DAYS) {
+                bucket.reset(Long.MIN_VALUE, ringPlateSketch, ringOwnerSketch);
+            }
+        }
+        ringPlates.rescore(key -> ringPlateSketch.estimate(PlateHash.hash64(key)));
+        ringOwners.rescore(key -> ringOwnerSketch.estimate(PlateHash.hash64(key)));
+    }
+
+    /**
+     * Most frequent plates over the windowDays days ending with today
+     */
+    public synchronized List<VisitorCount> topPlates(LocalDate today, int windowDays, int limit) {
+        return top(today, windowDays, limit, true);
+    }
+
+    /**
+     * Most frequent named owners over the windowDays days ending with today
+     */
+    public synchronized List<VisitorCount> topOwners(LocalDate today, int windowDays, int limit) {
+        return top(today, windowDays, limit, false);
+    }
+
+    private List<VisitorCount> top(LocalDate today, int windowDays, int limit, boolean plates) {
+        if (windowDays < 1 || windowDays > MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Window must be 1-" + MAX_WINDOW_DAYS + " days");
+        }
+        long last = today.toEpochDay();
+        List<DayBucket> window = new ArrayList<>(windowDays);
+        Set<String> candidates = new HashSet<>(plates ? ringPlates.keys() : ringOwners.keys());
+        for (long day = last - windowDays + 1; day <= last; day++) {
+            DayBucket bucket = days[(int) Math.floorMod(day, (long) MAX_WINDOW_DAYS)];
+            if (bucket.epochDay == day) {
+                window.add(bucket);
+                candidates.addAll(plates ? bucket.plates.keys() : bucket.owners.keys());
+            }
+        }
+
+        List<VisitorCount> ranked = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            long hash = PlateHash.hash64(key);
+            int visits = 0;
+            for (DayBucket bucket : window) {
+                visits += (plates ? bucket.plateSketch : bucket.ownerSketch).estimate(hash);
+            }
+            if (visits > 0) {
+                ranked.add(new VisitorCount(key, visits));
+            }
+        }
+        ranked.sort(Comparator.comparingInt(VisitorCount::visits).reversed().thenComparing(VisitorCount::key));
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    private static final class DayBucket {
+        long epochDay = Long.MIN_VALUE;
+        final CountMinSketch plateSketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        final CountMinSketch ownerSketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        final HeavyHitters plates = new HeavyHitters(CANDIDATES_PER_DAY);
+        final HeavyHitters owners = new HeavyHitters(CANDIDATES_PER_DAY);
+
+        void reset(long epochDay, CountMinSketch ringPlateSketch, CountMinSketch ringOwnerSketch) {
+            this.epochDay = epochDay;
+            plateSketch.clear(ringPlateSketch);
+            ownerSketch.clear(ringOwnerSketch);
+            plates.clear();
+            owners.clear();
+        }
+    }
+}
@@ -0,0 +1,526 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Length-prefixed binary protocol spoken by ANPR cameras and barrier controllers.
+ *
+ * <pre>
+ * request:  int length | byte opcode | int requestId | payload
+ * response: int length | byte status | int requestId | payload
+ * </pre>
+ *
+ * length counts the bytes after the length field. Strings are a one-byte
+ * length followed by ASCII bytes; floors are unsigned shorts. Payloads per opcode:
+ *
+ * <pre>
+ * PARK      -> byte type, short floor, str plate, str owner  <- str ticketId, str spotId, short floor
+ * RELEASE   -> str ticketId                                  <- long charges
+ * FIND      -> str plate                                     <- str ticketId, str spotId, short floor
+ * OCCUPANCY -> (none)                                        <- int total, int occupied
+ * </pre>
+ *
+ * Any status other than OK carries a single str message. A payload that is
+ * short, has bytes left over, or names an unknown vehicle type is answered
+ * BAD_REQUEST.
+ */
+final class GateProtocol {
+    static final byte OP_PARK = 1;
+    static final byte OP_RELEASE = 2;
+    static final byte OP_FIND = 3;
+    static final byte OP_OCCUPANCY = 4;
+
+    static final byte OK = 0;
+    static final byte NOT_FOUND = 1;
+    static final byte ALREADY_PARKED = 2;
+    static final byte LOT_FULL = 3;
+    static final byte BAD_REQUEST = 4;
+    static final byte FAILED = 5;
+
+    static final int MAX_FRAME = 1024;
+
+    private GateProtocol() {
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        int length = Math.min(value.length(), 255);
+        buffer.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    static String getString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.get() & 0xFF;
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reject a payload with bytes left after its last field
+     */
+    static void requireEnd(ByteBuffer payload) {
+        if (payload.hasRemaining()) {
+            throw new IllegalArgumentException("Payload has " + payload.remaining() + " trailing bytes");
+        }
+    }
+
+    static byte statusFor(RuntimeException e) {
+        if (e instanceof InvalidTicketException || e instanceof VehicleNotFoundException) return NOT_FOUND;
+        if (e instanceof VehicleAlreadyParkedException) return ALREADY_PARKED;
+        if (e instanceof ParkingLotFullException) return LOT_FULL;
+        if (e instanceof IllegalArgumentException || e instanceof IndexOutOfBoundsException
+                || e instanceof BufferUnderflowException) return BAD_REQUEST;
+        return FAILED;
+    }
+}
+
+/**
+ * Selector-based server for the gate protocol. An acceptor hands connections
+ * round-robin to a fixed set of reactor threads; each reactor decodes every
+ * complete frame in a read, answers them in order into the connection's write
+ * buffer, and flushes once per read, so pipelined and batched requests cost a
+ * single syscall each way. Read and write buffers are direct and live for the
+ * connection's lifetime.
+ *
+ * Operations run on the reactor thread. A park or release contending for a
+ * spot lock stalls only the connections owned by that reactor.
+ */
+public class GateProtocolServer implements AutoCloseable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int DEFAULT_PORT = 7500;
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values(); // values() clones per call
+
+    private final SmartParkingLotSimulator manager;
+    private final ServerSocketChannel serverChannel;
+    private final Selector acceptSelector;
+    private final Reactor[] reactors;
+    private final Thread acceptThread;
+    private final AtomicInteger gateIds = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public GateProtocolServer(SmartParkingLotSimulator manager, int port, int reactorCount) throws IOException {
+        this.manager = manager;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        this.acceptSelector = Selector.open();
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        this.reactors = new Reactor[reactorCount];
+        for (int i = 0; i < reactorCount; i++) {
+            reactors[i] = new Reactor(i);
+            reactors[i].start();
+        }
+        this.acceptThread = new Thread(this::acceptLoop, "gate-acceptor");
+        acceptThread.start();
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        try {
+            while (running) {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = serverChannel.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    reactors[next++ % reactors.length].adopt(channel);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                System.out.println("Gate acceptor stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop accepting, then stop every reactor; each closes its connections on the way out
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        acceptSelector.close();
+        serverChannel.close();
+        try {
+            acceptThread.join();
+            for (Reactor reactor : reactors) {
+                reactor.selector.wakeup();
+                reactor.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Connection {
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        final int gate; // each connection is a gate with its own search offset on every floor
+
+        Connection(int gate) {
+            this.gate = gate;
+        }
+    }
+
+    private final class Reactor extends Thread {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final byte[] scratch = new byte[256];
+
+        Reactor(int index) throws IOException {
+            super("gate-reactor-" + index);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        void adopt(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel adopted;
+                    while ((adopted = pending.poll()) != null) {
+                        adopted.register(selector, SelectionKey.OP_READ, new Connection(gateIds.getAndIncrement()));
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            if (key.isValid() && key.isWritable()) onWritable(key);
+                            if (key.isValid() && key.isReadable()) onReadable(key);
+                        } catch (IOException e) {
+                            closeQuietly(key);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    System.out.println(getName() + " stopped: " + e.getMessage());
+                }
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void closeAll() {
+            if (selector.isOpen()) {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key);
+                }
+            }
+            SocketChannel adopted;
+            while ((adopted = pending.poll()) != null) {
+                try {
+                    adopted.close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void onReadable(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection conn = (Connection) key.attachment();
+            if (channel.read(conn.in) < 0) {
+                closeQuietly(key);
+                return;
+            }
+            processFrames(key, conn);
+        }
+
+        private void onWritable(SelectionKey key) throws IOException {
+            Connection conn = (Connection) key.attachment();
+            if (flush(key, conn)) {
+                // Backlog drained: answer anything still buffered, then resume reading
+                processFrames(key, conn);
+            }
+        }
+
+        private void processFrames(SelectionKey key, Connection conn) throws IOException {
+            while (true) {
+                ByteBuffer in = conn.in;
+                boolean outputFull = false;
+                in.flip();
+                while (in.remaining() >= 4) {
+                    int length = in.getInt(in.position());
+                    if (length < 5 || length > GateProtocol.MAX_FRAME) {
+                        closeQuietly(key);
+                        return;
+                    }
+                    if (in.remaining() < 4 + length) break;
+                    if (conn.out.remaining() < GateProtocol.MAX_FRAME) {
+                        outputFull = true;
+                        break;
+                    }
+
+                    int frameEnd = in.position() + 4 + length;
+                    in.getInt();
+                    byte opcode = in.get();
+                    int requestId = in.getInt();
+                    // Bound the payload so a short frame cannot read into the next one
+                    int limit = in.limit();
+                    in.limit(frameEnd);
+                    dispatch(opcode, requestId, in, conn.out, conn.gate);
+                    in.limit(limit);
+                    in.position(frameEnd);
+                }
+                in.compact();
+
+                if (!flush(key, conn)) {
+                    // Stop reading until the peer drains its responses
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (!outputFull) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true when the write buffer is empty
+         */
+        private boolean flush(SelectionKey key, Connection conn) throws IOException {
+            ByteBuffer out = conn.out;
+            out.flip();
+            ((SocketChannel) key.channel()).write(out);
+            boolean drained = !out.hasRemaining();
+            out.compact();
+            return drained;
+        }
+
+        private void dispatch(byte opcode, int requestId, ByteBuffer in, ByteBuffer out, int gate) {
+            int start = out.position();
+            out.putInt(0).put(GateProtocol.OK).putInt(requestId);
+            try {
+                switch (opcode) {
+                    case GateProtocol.OP_PARK -> {
+                        int typeIndex = in.get() & 0xFF;
+                        if (typeIndex >= VEHICLE_TYPES.length) {
+                            throw new IllegalArgumentException("Unknown vehicle type " + typeIndex);
+                        }
+                        VehicleType type = VEHICLE_TYPES[typeIndex];
+                        int floor = in.getShort() & 0xFFFF;
+                        String plate = GateProtocol.getString(in, scratch);
+                        String owner = GateProtocol.getString(in, scratch);
+                        GateProtocol.requireEnd(in);
+                        writeTicket(out, manager.parkVehicleAtGate(
+                                SmartParkingLotSimulator.createVehicle(type, plate, owner,
+                                        LocalDateTime.now(manager.getClock())), floor, gate));
+                    }
+                    case GateProtocol.OP_RELEASE -> {
+                        String ticketId = GateProtocol.getString(in, scratch);
+                        GateProtocol.requireEnd(in);
+                        out.putLong(Math.round(manager.releaseVehicle(ticketId)));
+                    }
+                    case GateProtocol.OP_FIND -> {
+                        String plate = GateProtocol.getString(in, scratch);
+                        GateProtocol.requireEnd(in);
+                        writeTicket(out, manager.findTicketByLicense(plate));
+                    }
+                    case GateProtocol.OP_OCCUPANCY -> {
+                        GateProtocol.requireEnd(in);
+                        out.putInt(manager.getTotalSpotCount()).putInt(manager.getOccupiedSpotCount());
+                    }
+                    default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+                }
+            } catch (RuntimeException e) {
+                out.position(start);
+                out.putInt(0).put(GateProtocol.statusFor(e)).putInt(requestId);
+                GateProtocol.putString(out, String.valueOf(e.getMessage()));
+            }
+            out.putInt(start, out.position() - start - 4);
+        }
+
+        private void writeTicket(ByteBuffer out, Ticket ticket) {
+            GateProtocol.putString(out, ticket.getTicketId());
+            GateProtocol.putString(out, ticket.getSpot().getSpotId());
+            out.putShort((short) ticket.getSpot().getFloor());
+        }
+
+        private void closeQuietly(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * java GateProtocolServer [port] [layout-file | rows cols floors]
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LotLayout layout;
+        if (args.length == 2) {
+            layout = LotLayout.load(Path.of(args[1]));
+        } else {
+            int rows = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+            int cols = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+            int floors = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+            layout = LotLayout.grid(rows, cols, floors);
+        }
+
+        SmartParkingLotSimulator manager = new SmartParkingLotSimulator(layout, new EnhancedBillingSystem());
+        GateProtocolServer server = new GateProtocolServer(manager, port, Runtime.getRuntime().availableProcessors());
+        System.out.println("Gate protocol listening on port " + server.getPort());
+    }
+}
+
+/**
+ * Local camera/barrier simulator for load testing the gate protocol. Each
+ * connection pipelines a batch of PARK frames, reads the answers, then
+ * pipelines RELEASE frames for the issued tickets.
+ *
+ * <pre>
+ *   java GateLoadClient [host] [port] [connections] [batch] [seconds]
+ * </pre>
+ */
+class GateLoadClient {
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7500;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        AtomicLong completed = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[connections];
+
+        for (int c = 0; c < connections; c++) {
+            final int camera = c;
+            workers[c] = new Thread(() -> {
+                try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+                    channel.socket().setTcpNoDelay(true);
+                    runCamera(channel, camera, batch, deadline, completed, rejected);
+                } catch (IOException e) {
+                    System.out.println("Camera " + camera + " failed: " + e.getMessage());
+                }
+            }, "camera-" + c);
+            workers[c].start();
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d requests in %.1fs = %.0f req/s (%d rejected)%n",
+                completed.get(), elapsed, completed.get() / elapsed, rejected.get());
+    }
+
+    private static void runCamera(SocketChannel channel, int camera, int batch, long deadline,
+                                  AtomicLong completed, AtomicLong rejected) throws IOException {
+        ByteBuffer out = ByteBuffer.allocateDirect(batch * GateProtocol.MAX_FRAME);
+        ByteBuffer in = ByteBuffer.allocateDirect(batch * GateProtocol.MAX_FRAME);
+        byte[] scratch = new byte[256];
+        String[] tickets = new String[batch];
+        Random random = new Random(camera);
+        VehicleType[] types = VehicleType.values();
+        int requestId = 0;
+        long serial = 0;
+
+        while (System.nanoTime() < deadline) {
+            out.clear();
+            for (int i = 0; i < batch; i++) {
+                int start = out.position();
+                out.putInt(0).put(GateProtocol.OP_PARK).putInt(requestId++);
+                out.put((byte) random.nextInt(types.length)).putShort((short) 1);
+                GateProtocol.putString(out, "C" + camera + Long.toString(serial++ % 1_000_000_000L, 36).toUpperCase());
+                GateProtocol.putString(out, "Camera " + camera);
+                out.putInt(start, out.position() - start - 4);
+            }
+            exchange(channel, out, in, batch, (i, status) -> {
+                if (status == GateProtocol.OK) {
+                    tickets[i] = GateProtocol.getString(in, scratch);
+                    GateProtocol.getString(in, scratch);
+                    in.getShort();
+                } else {
+                    tickets[i] = null;
+                    rejected.incrementAndGet();
+                    GateProtocol.getString(in, scratch);
+                }
+            });
+
+            out.clear();
+            int releases = 0;
+            for (String ticket : tickets) {
+                if (ticket == null) continue;
+                int start = out.position();
+                out.putInt(0).put(GateProtocol.OP_RELEASE).putInt(requestId++);
+                GateProtocol.putString(out, ticket);
+                out.putInt(start, out.position() - start - 4);
+                releases++;
+            }
+            exchange(channel, out, in, releases, (i, status) -> {
+                if (status == GateProtocol.OK) {
+                    in.getLong();
+                } else {
+                    rejected.incrementAndGet();
+                    GateProtocol.getString(in, scratch);
+                }
+            });
+            completed.addAndGet(batch + releases);
+        }
+    }
+
+    private interface ResponseReader {
+        void read(int index, byte status);
+    }
+
+    private static void exchange(SocketChannel channel, ByteBuffer out, ByteBuffer in, int expected,
+                                 ResponseReader reader) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        in.clear();
+        int received = 0;
+        while (received < expected) {
+            if (channel.read(in) < 0) throw new IOException("Server closed connection");
+            in.flip();
+            while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position())) {
+                int frameEnd = in.position() + 4 + in.getInt(in.position());
+                in.getInt();
+                byte status = in.get();
+                in.getInt();
+                reader.read(received++, status);
+                in.position(frameEnd);
+            }
+            in.compact();
+        }
+    }
+}
@@ -0,0 +1,556 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a bay is built for. Informational for parking; EV bays size the lot's charger pool.
+ */
+enum BayClass {
+    STANDARD, COMPACT, LARGE, EV, ACCESSIBLE
+}
+
+/**
+ * Floor, zone, row and column of a bay packed into one long, 16 bits each.
+ * The zone is its position on the floor (0 for the first one listed); row and
+ * column are 1-based, row 1 being the row lettered A.
+ */
+final class SpotCoordinates {
+    static final int MAX = 0xFFFF;
+
+    private SpotCoordinates() {
+    }
+
+    static long pack(int floor, int zone, int row, int column) {
+        return (long) floor << 48 | (long) zone << 32 | (long) row << 16 | column;
+    }
+
+    static int floor(long coordinates) {
+        return (int) (coordinates >>> 48);
+    }
+
+    static int zone(long coordinates) {
+        return (int) (coordinates >>> 32) & MAX;
+    }
+
+    static int row(long coordinates) {
+        return (int) (coordinates >>> 16) & MAX;
+    }
+
+    static int column(long coordinates) {
+        return (int) coordinates & MAX;
+    }
+}
+
+/**
+ * Shape of a lot: floors made of zones, zones made of rows of bays, each zone
+ * with one bay class. Floors can differ and rows within a zone can have
+ * different lengths.
+ *
+ * Bays are numbered 0..n-1 floor by floor, zone by zone, row by row, and
+ * nothing is stored per bay: a zone keeps its first bay number and the prefix
+ * sums of its row lengths, so a million bays cost a few arrays the size of
+ * the zone count. A bay's string ID is built on demand from its position:
+ * row letters, 1-based column and floor, prefixed with the zone name when the
+ * zone has one ("A1F1", "EV-B12F3").
+ *
+ * The layout doubles as the spot directory. An ID parses back to its bay
+ * number without regex or allocation: the zone comes from one probe on its
+ * packed name and floor, the bay from the zone's row offsets. Bay numbers
+ * and packed SpotCoordinates convert both ways in O(1); only the row of a
+ * bay in a zone with uneven rows takes a binary search.
+ *
+ * Layout files are line based; '#' starts a comment:
+ * <pre>
+ *   site north            # optional; a file may describe several sites
+ *   floor 1               # floors are numbered 1, 2, ... in order
+ *   zone - 3x8            # unnamed zone, 3 rows of 8 standard bays (IDs A1F1..C8F1)
+ *   zone EV 10,10,6 ev    # zone EV, rows of 10, 10 and 6 EV bays (IDs EV-A1F1..)
+ *   floor 2
+ *   zone P 40x25 compact
+ * </pre>
+ */
+public class LotLayout {
+    private static final String DEFAULT_SITE = "default";
+    private static final char ZONE_SEPARATOR = '-';
+    private static final int MAX_ZONE_NAME = 8; // packs into 42 bits, leaving room for the floor
+    private static final int BLOCK_SHIFT = 6;
+
+    private final String name;
+    private final int floors;
+    private final int[] floorFirstZone;  // floors + 1 entries
+    private final int[] zoneFirstSpot;   // zones + 1 entries
+    private final int[] zoneFloor;
+    private final String[] zoneName;     // "" for an unnamed zone
+    private final BayClass[] zoneClass;
+    private final int[][] zoneRowStart;  // per zone, rows + 1 prefix sums
+    private final int[] zoneColumns;     // row length when all rows of the zone share it, else 0
+    private final int[] zoneByBlock;     // zone of the first bay of every 64-bay block
+    private final LongIntMap zoneByName; // zoneKey(floor, packed name) -> zone
+
+    private LotLayout(String name, List<Zone> zones, int floors) {
+        this.name = name;
+        this.floors = floors;
+        int count = zones.size();
+        this.floorFirstZone = new int[floors + 1];
+        this.zoneFirstSpot = new int[count + 1];
+        this.zoneFloor = new int[count];
+        this.zoneName = new String[count];
+        this.zoneClass = new BayClass[count];
+        this.zoneRowStart = new int[count][];
+        this.zoneColumns = new int[count];
+        this.zoneByName = new LongIntMap(count);
+        if (floors > SpotCoordinates.MAX) {
+            throw new IllegalArgumentException("Layout " + name + " has more than " + SpotCoordinates.MAX + " floors");
+        }
+
+        long spots = 0;
+        int floor = 0;
+        for (int z = 0; z < count; z++) {
+            Zone zone = zones.get(z);
+            while (floor < zone.floor) {
+                floorFirstZone[floor++] = z;
+            }
+            zoneFirstSpot[z] = (int) spots;
+            zoneFloor[z] = zone.floor;
+            zoneName[z] = zone.name;
+            zoneClass[z] = zone.bayClass;
+            if (z - floorFirstZone[zone.floor - 1] > SpotCoordinates.MAX || zone.rows.length > SpotCoordinates.MAX) {
+                throw new IllegalArgumentException("Layout " + name + " has too many zones or rows on floor " + zone.floor);
+            }
+            int[] starts = new int[zone.rows.length + 1];
+            int columns = zone.rows[0];
+            for (int r = 0; r < zone.rows.length; r++) {
+                if (zone.rows[r] > SpotCoordinates.MAX) {
+                    throw new IllegalArgumentException("Layout " + name + " has a row longer than " + SpotCoordinates.MAX);
+                }
+                starts[r + 1] = starts[r] + zone.rows[r];
+                if (zone.rows[r] != columns) columns = 0;
+            }
+            zoneRowStart[z] = starts;
+            zoneColumns[z] = columns;
+            zoneByName.put(zoneKey(zone.floor, packName(zone.name, 0, zone.name.length())), z);
+            spots += starts[zone.rows.length];
+            if (spots > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Layout " + name + " has too many bays");
+            }
+        }
+        while (floor <= floors) {
+            floorFirstZone[floor++] = count;
+        }
+        zoneFirstSpot[count] = (int) spots;
+
+        zoneByBlock = new int[((int) spots >>> BLOCK_SHIFT) + 1];
+        for (int b = 0, z = 0; b < zoneByBlock.length; b++) {
+            while (z + 1 < count && zoneFirstSpot[z + 1] <= b << BLOCK_SHIFT) z++;
+            zoneByBlock[b] = z;
+        }
+    }
+
+    /**
+     * The classic rectangular lot: every floor one unnamed zone of rows x cols standard bays
+     */
+    public static LotLayout grid(int rows, int cols, int floors) {
+        if (rows < 1 || cols < 1 || floors < 1) {
+            throw new IllegalArgumentException("Grid needs at least one row, column and floor");
+        }
+        int[] lengths = new int[rows];
+        Arrays.fill(lengths, cols);
+        List<Zone> zones = new ArrayList<>(floors);
+        for (int floor = 1; floor <= floors; floor++) {
+            zones.add(new Zone(floor, "", BayClass.STANDARD, lengths));
+        }
+        return new LotLayout(DEFAULT_SITE, zones, floors);
+    }
+
+    /**
+     * Load a file that describes exactly one site
+     */
+    public static LotLayout load(Path file) throws IOException {
+        Map<String, LotLayout> sites = loadSites(file);
+        if (sites.size() != 1) {
+            throw new IllegalArgumentException(file + " describes " + sites.size() + " sites; expected one");
+        }
+        return sites.values().iterator().next();
+    }
+
+    /**
+     * Load every site in a file, in file order
+     */
+    public static Map<String, LotLayout> loadSites(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(in, file.toString());
+        }
+    }
+
+    static Map<String, LotLayout> parse(Reader source, String sourceName) throws IOException {
+        BufferedReader in = source instanceof BufferedReader b ? b : new BufferedReader(source);
+        Map<String, LotLayout> sites = new LinkedHashMap<>();
+        String site = null;
+        List<Zone> zones = new ArrayList<>();
+        int floor = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int hash = line.indexOf('#');
+            String[] words = (hash >= 0 ? line.substring(0, hash) : line).trim().split("\\s+");
+            if (words[0].isEmpty()) continue;
+            String where = sourceName + ":" + lineNumber + ": ";
+            switch (words[0].toLowerCase()) {
+                case "site" -> {
+                    if (words.length != 2) throw new IllegalArgumentException(where + "expected 'site NAME'");
+                    if (site != null || floor > 0) {
+                        addSite(sites, site, zones, floor, where);
+                    }
+                    site = words[1];
+                    zones = new ArrayList<>();
+                    floor = 0;
+                }
+                case "floor" -> {
+                    if (words.length > 2 || (words.length == 2 && !words[1].equals(String.valueOf(floor + 1)))) {
+                        throw new IllegalArgumentException(where + "expected 'floor " + (floor + 1) + "'");
+                    }
+                    floor++;
+                }
+                case "zone" -> {
+                    if (floor == 0) throw new IllegalArgumentException(where + "zone before the first floor");
+                    if (words.length < 3 || words.length > 4) {
+                        throw new IllegalArgumentException(where + "expected 'zone NAME ROWS [CLASS]'");
+                    }
+                    String zoneName = words[1].equals("-") ? "" : words[1];
+                    checkZoneName(zoneName, where);
+                    for (Zone other : zones) {
+                        if (other.floor == floor && other.name.equals(zoneName)) {
+                            throw new IllegalArgumentException(where + "zone " + words[1] + " repeats on floor " + floor);
+                        }
+                    }
+                    BayClass bayClass = words.length == 4 ? parseBayClass(words[3], where) : BayClass.STANDARD;
+                    zones.add(new Zone(floor, zoneName, bayClass, parseRows(words[2], where)));
+                }
+                default -> throw new IllegalArgumentException(where + "unknown directive " + words[0]);
+            }
+        }
+        if (site != null || floor > 0) {
+            addSite(sites, site, zones, floor, sourceName + ": ");
+        }
+        if (sites.isEmpty()) {
+            throw new IllegalArgumentException(sourceName + ": no floors described");
+        }
+        return sites;
+    }
+
+    private static void addSite(Map<String, LotLayout> sites, String site, List<Zone> zones, int floors, String where) {
+        String name = site != null ? site : DEFAULT_SITE;
+        if (sites.containsKey(name)) {
+            throw new IllegalArgumentException(where + "site " + name + " is described twice");
+        }
+        if (floors == 0) {
+            throw new IllegalArgumentException(where + "site " + name + " has no floors");
+        }
+        for (int floor = 1; floor <= floors; floor++) {
+            int f = floor;
+            if (zones.stream().noneMatch(z -> z.floor == f)) {
+                throw new IllegalArgumentException(where + "floor " + floor + " of site " + name + " has no zones");
+            }
+        }
+        sites.put(name, new LotLayout(name, zones, floors));
+    }
+
+    private static void checkZoneName(String zoneName, String where) {
+        if (zoneName.length() > MAX_ZONE_NAME) {
+            throw new IllegalArgumentException(where + "zone names are at most " + MAX_ZONE_NAME + " characters: " + zoneName);
+        }
+        for (int i = 0; i < zoneName.length(); i++) {
+            char c = zoneName.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                throw new IllegalArgumentException(where + "zone names are upper-case letters and digits: " + zoneName);
+            }
+        }
+    }
+
+    /**
+     * "RxC" for R rows of C bays, or comma-separated row lengths
+     */
+    private static int[] parseRows(String spec, String where) {
+        try {
+            int x = spec.indexOf('x');
+            int[] rows;
+            if (x > 0) {
+                rows = new int[Integer.parseInt(spec.substring(0, x))];
+                Arrays.fill(rows, Integer.parseInt(spec.substring(x + 1)));
+            } else {
+                String[] parts = spec.split(",");
+                rows = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    rows[i] = Integer.parseInt(parts[i]);
+                }
+            }
+            for (int length : rows) {
+                if (length < 1) throw new NumberFormatException();
+            }
+            if (rows.length == 0) throw new NumberFormatException();
+            return rows;
+        } catch (NumberFormatException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException(where + "rows must be RxC or a list of positive row lengths: " + spec);
+        }
+    }
+
+    private static BayClass parseBayClass(String value, String where) {
+        try {
+            return BayClass.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + "unknown bay class " + value
+                    + "; expected one of " + Arrays.toString(BayClass.values()));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSpotCount() {
+        return zoneFirstSpot[zoneFirstSpot.length - 1];
+    }
+
+    public int getFloorCount() {
+        return floors;
+    }
+
+    /**
+     * Number of the first bay on a floor (1-based); bays of a floor are contiguous
+     */
+    public int floorStart(int floor) {
+        return zoneFirstSpot[floorFirstZone[floor - 1]];
+    }
+
+    public int floorSize(int floor) {
+        return zoneFirstSpot[floorFirstZone[floor]] - floorStart(floor);
+    }
+
+    /**
+     * Longest row on a floor, for drawing it as a grid
+     */
+    public int widestRow(int floor) {
+        int widest = 1;
+        for (int z = floorFirstZone[floor - 1]; z < floorFirstZone[floor]; z++) {
+            int[] starts = zoneRowStart[z];
+            for (int r = 1; r < starts.length; r++) {
+                widest = Math.max(widest, starts[r] - starts[r - 1]);
+            }
+        }
+        return widest;
+    }
+
+    public int zoneCount(int floor) {
+        return floorFirstZone[floor] - floorFirstZone[floor - 1];
+    }
+
+    /**
+     * Rows in the zone at a position on a floor, as numbered in SpotCoordinates
+     */
+    public int rowCount(int floor, int zone) {
+        return zoneRowStart[floorFirstZone[floor - 1] + zone].length - 1;
+    }
+
+    public int floorOf(int spot) {
+        return zoneFloor[zoneOf(spot)];
+    }
+
+    public BayClass bayClassOf(int spot) {
+        return zoneClass[zoneOf(spot)];
+    }
+
+    public int countOf(BayClass bayClass) {
+        int count = 0;
+        for (int z = 0; z < zoneClass.length; z++) {
+            if (zoneClass[z] == bayClass) count += zoneFirstSpot[z + 1] - zoneFirstSpot[z];
+        }
+        return count;
+    }
+
+    public String spotId(int spot) {
+        int z = zoneOf(spot);
+        int offset = spot - zoneFirstSpot[z];
+        int row = rowIn(z, offset);
+        StringBuilder id = new StringBuilder(zoneName[z].length() + 10);
+        if (!zoneName[z].isEmpty()) {
+            id.append(zoneName[z]).append(ZONE_SEPARATOR);
+        }
+        appendRowLetters(id, row);
+        return id.append(offset - zoneRowStart[z][row] + 1).append('F').append(zoneFloor[z]).toString();
+    }
+
+    /**
+     * Bay number for an ID produced by spotId, or -1 if the layout has no such bay
+     */
+    public int indexOf(CharSequence spotId) {
+        int f = spotId.length() - 1;
+        while (f >= 0 && spotId.charAt(f) != 'F') f--;
+        if (f < 0) return -1;
+        int floor = parsePositive(spotId, f + 1, spotId.length());
+        if (floor < 1 || floor > floors) return -1;
+
+        int dash = -1;
+        for (int i = 0; i < f && dash < 0; i++) {
+            if (spotId.charAt(i) == ZONE_SEPARATOR) dash = i;
+        }
+        long name = dash < 0 ? 0 : packName(spotId, 0, dash);
+        if (name < 0 || dash == 0) return -1;
+        int z = zoneByName.get(zoneKey(floor, name));
+        if (z == LongIntMap.MISSING) return -1;
+
+        int i = dash + 1;
+        int row = 0;
+        while (i < f && spotId.charAt(i) >= 'A' && spotId.charAt(i) <= 'Z') {
+            row = row * 26 + (spotId.charAt(i++) - 'A' + 1);
+            if (row > SpotCoordinates.MAX) return -1;
+        }
+        return indexIn(z, row, parsePositive(spotId, i, f));
+    }
+
+    /**
+     * Floor, zone, row and column of a bay as packed SpotCoordinates
+     */
+    public long coordinatesOf(int spot) {
+        int z = zoneOf(spot);
+        int offset = spot - zoneFirstSpot[z];
+        int row = rowIn(z, offset);
+        int floor = zoneFloor[z];
+        return SpotCoordinates.pack(floor, z - floorFirstZone[floor - 1], row + 1, offset - zoneRowStart[z][row] + 1);
+    }
+
+    /**
+     * Bay number at packed SpotCoordinates, or -1 if the layout has no such bay
+     */
+    public int indexAt(long coordinates) {
+        int floor = SpotCoordinates.floor(coordinates);
+        if (floor < 1 || floor > floors) return -1;
+        int z = floorFirstZone[floor - 1] + SpotCoordinates.zone(coordinates);
+        if (z >= floorFirstZone[floor]) return -1;
+        return indexIn(z, SpotCoordinates.row(coordinates), SpotCoordinates.column(coordinates));
+    }
+
+    /**
+     * Bay number at a 1-based row and column of a named zone ("" for the unnamed one), or -1
+     */
+    public int indexAt(int floor, CharSequence zone, int row, int column) {
+        int number = zoneNumber(floor, zone);
+        return number < 0 ? -1 : indexIn(floorFirstZone[floor - 1] + number, row, column);
+    }
+
+    /**
+     * Position of a zone on its floor, as used in SpotCoordinates, or -1
+     */
+    public int zoneNumber(int floor, CharSequence zone) {
+        if (floor < 1 || floor > floors) return -1;
+        long name = packName(zone, 0, zone.length());
+        int z = name < 0 ? LongIntMap.MISSING : zoneByName.get(zoneKey(floor, name));
+        return z == LongIntMap.MISSING ? -1 : z - floorFirstZone[floor - 1];
+    }
+
+    /**
+     * Name of the zone at packed coordinates; "" for an unnamed zone
+     */
+    public String zoneName(long coordinates) {
+        return zoneName[floorFirstZone[SpotCoordinates.floor(coordinates) - 1] + SpotCoordinates.zone(coordinates)];
+    }
+
+    private int indexIn(int z, int row, int column) {
+        int[] starts = zoneRowStart[z];
+        if (row < 1 || row >= starts.length || column < 1 || column > starts[row] - starts[row - 1]) {
+            return -1;
+        }
+        return zoneFirstSpot[z] + starts[row - 1] + column - 1;
+    }
+
+    private int zoneOf(int spot) {
+        if (spot < 0 || spot >= getSpotCount()) {
+            throw new IndexOutOfBoundsException("No bay " + spot + " in layout " + name);
+        }
+        // Only zones that start inside the block can lie between its first bay and this one
+        int z = zoneByBlock[spot >>> BLOCK_SHIFT];
+        while (zoneFirstSpot[z + 1] <= spot) z++;
+        return z;
+    }
+
+    /**
+     * 0-based row of the bay offset bays into a zone
+     */
+    private int rowIn(int z, int offset) {
+        int columns = zoneColumns[z];
+        return columns > 0 ? offset / columns : upperBound(zoneRowStart[z], offset) - 1;
+    }
+
+    private static long zoneKey(int floor, long packedName) {
+        return packedName << 16 | floor;
+    }
+
+    /**
+     * Zone name in bijective base 37 like PlateKey, 0 for the unnamed zone, or
+     * -1 if the characters in [from, to) cannot be a zone name
+     */
+    private static long packName(CharSequence s, int from, int to) {
+        if (to - from > MAX_ZONE_NAME) return -1;
+        long packed = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                packed = packed * 37 + (c - '0' + 1);
+            } else if (c >= 'A' && c <= 'Z') {
+                packed = packed * 37 + (c - 'A' + 11);
+            } else {
+                return -1;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * First index whose value is greater than key, in an ascending array
+     */
+    private static int upperBound(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Rows are lettered A..Z, then AA, AB, ... like spreadsheet columns
+     */
+    private static void appendRowLetters(StringBuilder id, int row) {
+        int at = id.length();
+        for (int n = row + 1; n > 0; n = (n - 1) / 26) {
+            id.insert(at, (char) ('A' + (n - 1) % 26));
+        }
+    }
+
+    /**
+     * Decimal digits of s in [from, to) without sign or leading zero, or -1
+     */
+    private static int parsePositive(CharSequence s, int from, int to) {
+        if (from >= to || to - from > 9 || s.charAt(from) == '0') return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private record Zone(int floor, String name, BayClass bayClass, int[] rows) {
+    }
+}
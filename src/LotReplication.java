@@ -0,0 +1,640 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A replication record that cannot be decoded. The stream is out of step with
+ * the primary but says nothing about the primary's health, so the replica
+ * resynchronizes rather than promoting itself.
+ */
+class ReplicationProtocolException extends IOException {
+    ReplicationProtocolException(String message) {
+        super(message);
+    }
+}
+
+/**
+ * One entry of the replicated park/release log
+ */
+class ReplicationEvent {
+    static final byte PARK = 1;
+    static final byte RELEASE = 2;
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    final long sequence;
+    final byte kind;
+    final String ticketId;
+    final String licensePlate;
+    final VehicleType vehicleType;
+    final String ownerId;
+    final String spotId;
+    final long timeMillis;
+    final double charges;
+
+    ReplicationEvent(long sequence, byte kind, String ticketId, String licensePlate, VehicleType vehicleType,
+                     String ownerId, String spotId, long timeMillis, double charges) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.ticketId = ticketId;
+        this.licensePlate = licensePlate;
+        this.vehicleType = vehicleType;
+        this.ownerId = ownerId;
+        this.spotId = spotId;
+        this.timeMillis = timeMillis;
+        this.charges = charges;
+    }
+
+    static ReplicationEvent parked(long sequence, Ticket ticket) {
+        Vehicle v = ticket.getVehicle();
+        return new ReplicationEvent(sequence, PARK, ticket.getTicketId(), v.getLicensePlate(), v.getVehicleType(),
+                v.getOwnerId(), ticket.getSpot().getSpotId(), LotReplication.toMillis(ticket.getEntryTime()), 0);
+    }
+
+    static ReplicationEvent released(long sequence, Ticket ticket) {
+        return new ReplicationEvent(sequence, RELEASE, ticket.getTicketId(), null, null, null, null,
+                LotReplication.toMillis(ticket.getExitTime()), ticket.getChargesPaid());
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(kind);
+        out.writeUTF(ticketId);
+        out.writeLong(timeMillis);
+        if (kind == PARK) {
+            out.writeUTF(licensePlate);
+            out.writeByte(vehicleType.ordinal());
+            out.writeUTF(ownerId);
+            out.writeUTF(spotId);
+        } else {
+            out.writeDouble(charges);
+        }
+    }
+
+    static ReplicationEvent readFrom(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        byte kind = in.readByte();
+        if (kind != PARK && kind != RELEASE) {
+            throw new ReplicationProtocolException("Unknown record kind " + kind + " at sequence " + sequence);
+        }
+        String ticketId = in.readUTF();
+        long timeMillis = in.readLong();
+        if (kind == PARK) {
+            String plate = in.readUTF();
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= VEHICLE_TYPES.length) {
+                throw new ReplicationProtocolException("Unknown vehicle type " + ordinal + " at sequence " + sequence);
+            }
+            VehicleType type = VEHICLE_TYPES[ordinal];
+            String owner = in.readUTF();
+            String spotId = in.readUTF();
+            return new ReplicationEvent(sequence, kind, ticketId, plate, type, owner, spotId, timeMillis, 0);
+        }
+        return new ReplicationEvent(sequence, kind, ticketId, null, null, null, null, timeMillis, in.readDouble());
+    }
+
+    void applyTo(SmartParkingLotSimulator lot) {
+        LocalDateTime time = LotReplication.fromMillis(timeMillis);
+        if (kind == PARK) {
+            lot.restorePark(ticketId, SmartParkingLotSimulator.createVehicle(vehicleType, licensePlate, ownerId, time),
+                    spotId, time);
+        } else {
+            lot.restoreRelease(ticketId, time, charges);
+        }
+    }
+}
+
+/**
+ * Primary side of state-machine replication. Every park/release on the lot is
+ * sequenced into an ordered log and streamed to each connected replica in
+ * pipelined batches; replicas ack the highest sequence they have applied and
+ * the sender keeps at most WINDOW unacknowledged events in flight.
+ *
+ * A replica that joins late is registered for the live tail first and then
+ * sent the active tickets as a snapshot, read without holding up the gates.
+ * The snapshot is stamped with the sequence read after it was taken; tail
+ * events up to that sequence may already be reflected in it, and the replica
+ * treats any of them that conflict as replays. Replica apply is idempotent,
+ * so the two converge to the same state.
+ */
+class ReplicationPrimary implements ParkingEventListener, Closeable {
+    private static final int MAX_BATCH = 256;
+    private static final long WINDOW = 4096;
+    private static final int MAX_BACKLOG = 1_000_000;
+    private static final long HEARTBEAT_MS = 1000;
+
+    private final SmartParkingLotSimulator lot;
+    private final ServerSocket serverSocket;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object logLock = new Object();
+    private final List<ReplicaLink> links = new CopyOnWriteArrayList<>();
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "replication-primary");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+
+    public ReplicationPrimary(SmartParkingLotSimulator lot, int port) throws IOException {
+        this.lot = lot;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(port));
+        lot.addEventListener(this);
+        workers.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getLastSequence() {
+        return sequence.get();
+    }
+
+    public int getReplicaCount() {
+        return links.size();
+    }
+
+    /**
+     * Lowest sequence acknowledged by every connected replica
+     */
+    public long getReplicatedSequence() {
+        long min = sequence.get();
+        for (ReplicaLink link : links) {
+            min = Math.min(min, link.acked);
+        }
+        return min;
+    }
+
+    @Override
+    public void onVehicleParked(Ticket ticket) {
+        synchronized (logLock) {
+            publish(ReplicationEvent.parked(sequence.incrementAndGet(), ticket));
+        }
+    }
+
+    @Override
+    public void onVehicleReleased(Ticket ticket) {
+        synchronized (logLock) {
+            publish(ReplicationEvent.released(sequence.incrementAndGet(), ticket));
+        }
+    }
+
+    private void publish(ReplicationEvent event) {
+        for (ReplicaLink link : links) {
+            link.enqueue(event);
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                ReplicaLink link = new ReplicaLink(socket);
+                synchronized (logLock) {
+                    // Registered under the log lock so every later event reaches the link's backlog
+                    links.add(link);
+                }
+                workers.execute(link::sendLoop);
+                workers.execute(link::ackLoop);
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Replication accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        lot.removeEventListener(this);
+        serverSocket.close();
+        for (ReplicaLink link : links) {
+            link.close();
+        }
+        workers.shutdownNow();
+    }
+
+    private final class ReplicaLink {
+        private final Socket socket;
+        private final BlockingQueue<ReplicationEvent> backlog = new LinkedBlockingQueue<>();
+        private final Object windowLock = new Object();
+        private volatile long acked;
+        private volatile boolean open = true;
+
+        ReplicaLink(Socket socket) {
+            this.socket = socket;
+        }
+
+        void enqueue(ReplicationEvent event) {
+            if (backlog.size() >= MAX_BACKLOG) {
+                // A replica this far behind must reconnect and take a fresh snapshot
+                System.out.println("Replica " + socket.getRemoteSocketAddress() + " fell behind; disconnecting");
+                close();
+                return;
+            }
+            backlog.offer(event);
+        }
+
+        void sendLoop() {
+            List<ReplicationEvent> batch = new ArrayList<>(MAX_BATCH);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024))) {
+                out.writeInt(LotReplication.MAGIC);
+                out.writeInt(lot.getTotalSpotCount());
+                writeSnapshot(out);
+                out.flush();
+
+                long sent = 0;
+                while (open) {
+                    ReplicationEvent first = backlog.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        backlog.drainTo(batch, MAX_BATCH - 1);
+                        sent = batch.get(batch.size() - 1).sequence;
+                        awaitWindow(sent);
+                    }
+                    // An empty batch doubles as a heartbeat
+                    out.writeInt(batch.size());
+                    for (ReplicationEvent event : batch) {
+                        event.writeTo(out);
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            } catch (IOException | InterruptedException e) {
+                // Replica went away
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Active tickets ahead of the live tail: the sequence they are current
+         * as of, their count, then one PARK record each
+         */
+        private void writeSnapshot(DataOutputStream out) throws IOException {
+            Collection<Ticket> active = lot.getActiveTickets().values();
+            long asOf = sequence.get();
+            out.writeLong(asOf);
+            out.writeInt(active.size());
+            for (Ticket ticket : active) {
+                ReplicationEvent.parked(asOf, ticket).writeTo(out);
+            }
+        }
+
+        private void awaitWindow(long sent) throws InterruptedException {
+            synchronized (windowLock) {
+                while (open && sent - acked > WINDOW) {
+                    windowLock.wait(HEARTBEAT_MS);
+                }
+            }
+        }
+
+        void ackLoop() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                while (open) {
+                    long seq = in.readLong();
+                    synchronized (windowLock) {
+                        acked = seq;
+                        windowLock.notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                // Replica went away
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (!open) return;
+            open = false;
+            links.remove(this);
+            backlog.clear();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            synchronized (windowLock) {
+                windowLock.notifyAll();
+            }
+        }
+    }
+}
+
+/**
+ * Replica side of state-machine replication. Applies the primary's log to a
+ * local simulator with the same layout, serves read-only queries from it, and
+ * can be promoted to primary once the primary stops sending (including heartbeats).
+ *
+ * Only a broken stream or the heartbeat timeout counts as losing the primary.
+ * A record that cannot be decoded drops the connection and resynchronizes
+ * from a fresh snapshot; tickets the snapshot no longer lists were closed
+ * while the replica was out of step and are released locally. A record that
+ * fails locally is retried while the failure is a lock timeout; one that
+ * contradicts the replica's state is logged and skipped, unless it is a
+ * replay the snapshot already covers.
+ */
+class ReplicationReplica implements Closeable {
+    private static final int PRIMARY_TIMEOUT_MS = 3000;
+    private static final long APPLY_RETRY_MS = 10;
+    private static final long RESYNC_DELAY_MS = 1000;
+
+    private final SmartParkingLotSimulator lot;
+    private final String host;
+    private final int port;
+    private volatile Socket socket;
+    private final Thread applier;
+    private long snapshotSequence;
+    private volatile long appliedSequence;
+    private volatile long skippedRecords;
+    private volatile boolean primaryAlive = true;
+    private volatile Runnable onPrimaryLost = () -> { };
+
+    public ReplicationReplica(SmartParkingLotSimulator lot, String host, int port) throws IOException {
+        this.lot = lot;
+        this.host = host;
+        this.port = port;
+        this.socket = connect(host, port);
+        this.applier = new Thread(this::applyLoop, "replication-replica");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    public void setOnPrimaryLost(Runnable onPrimaryLost) {
+        this.onPrimaryLost = Objects.requireNonNull(onPrimaryLost);
+        if (!primaryAlive) {
+            onPrimaryLost.run();
+        }
+    }
+
+    private static Socket connect(String host, int port) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), PRIMARY_TIMEOUT_MS);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(PRIMARY_TIMEOUT_MS);
+        return socket;
+    }
+
+    private void applyLoop() {
+        try {
+            while (true) {
+                try {
+                    follow(socket);
+                    return;
+                } catch (ReplicationProtocolException e) {
+                    System.out.println("Replication: " + e.getMessage() + "; resynchronizing");
+                    closeSocket();
+                    Thread.sleep(RESYNC_DELAY_MS);
+                    socket = connect(host, port);
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            System.out.println("Replication: primary silent for " + PRIMARY_TIMEOUT_MS + "ms");
+        } catch (IOException e) {
+            System.out.println("Replication stream ended: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            primaryAlive = false;
+            closeSocket();
+            onPrimaryLost.run();
+        }
+    }
+
+    /**
+     * Take the snapshot and then the live tail from one connection until it
+     * breaks or this replica is closed
+     */
+    private void follow(Socket socket) throws IOException, InterruptedException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            if (in.readInt() != LotReplication.MAGIC) {
+                throw new IOException("Not a replication primary");
+            }
+            int primarySpots = in.readInt();
+            if (primarySpots != lot.getTotalSpotCount()) {
+                throw new IOException("Layout mismatch: primary has " + primarySpots
+                        + " spots, replica has " + lot.getTotalSpotCount());
+            }
+
+            applySnapshot(in);
+            out.writeLong(appliedSequence);
+            out.flush();
+
+            while (!Thread.currentThread().isInterrupted()) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    ReplicationEvent event = ReplicationEvent.readFrom(in);
+                    apply(event);
+                    appliedSequence = Math.max(appliedSequence, event.sequence);
+                }
+                if (count > 0) {
+                    out.writeLong(appliedSequence);
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    private void applySnapshot(DataInputStream in) throws IOException, InterruptedException {
+        long asOf = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > lot.getTotalSpotCount()) {
+            throw new ReplicationProtocolException("Snapshot of " + count + " tickets for "
+                    + lot.getTotalSpotCount() + " spots");
+        }
+        List<ReplicationEvent> parks = new ArrayList<>(count);
+        Set<String> active = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            ReplicationEvent event = ReplicationEvent.readFrom(in);
+            if (event.kind != ReplicationEvent.PARK) {
+                throw new ReplicationProtocolException("Snapshot holds a non-park record");
+            }
+            parks.add(event);
+            active.add(event.ticketId);
+        }
+
+        // Closed on the primary while this replica was out of step; free their spots first
+        LocalDateTime now = LocalDateTime.now(lot.getClock());
+        for (String ticketId : lot.getActiveTicketIds()) {
+            if (!active.contains(ticketId)) {
+                lot.restoreRelease(ticketId, now, 0);
+            }
+        }
+        snapshotSequence = asOf;
+        for (ReplicationEvent event : parks) {
+            apply(event);
+        }
+        appliedSequence = Math.max(appliedSequence, asOf);
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Apply one record locally. Lock timeouts are retried until the record
+     * goes through; any other failure means the record cannot apply to this
+     * replica's state, and it is skipped rather than taken as a lost primary.
+     */
+    private void apply(ReplicationEvent event) throws InterruptedException {
+        while (true) {
+            try {
+                event.applyTo(lot);
+                return;
+            } catch (DeadlockPreventionException e) {
+                Thread.sleep(APPLY_RETRY_MS);
+            } catch (ParkingLotException e) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException(e.getMessage());
+                if (event.sequence <= snapshotSequence) {
+                    return; // superseded by the snapshot
+                }
+                skippedRecords++;
+                System.out.println("Replication: skipped record " + event.sequence + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public boolean isPrimaryAlive() {
+        return primaryAlive;
+    }
+
+    /**
+     * Records that could not be applied to the local state
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    // Read-only queries served from the replica's copy of the state
+
+    public Ticket findTicketByLicense(String licensePlate) {
+        return lot.findTicketByLicense(licensePlate);
+    }
+
+    public int getOccupiedSpotCount() {
+        return lot.getOccupiedSpotCount();
+    }
+
+    public Map<Integer, Integer> getFloorOccupancy() {
+        return lot.getFloorOccupancy();
+    }
+
+    /**
+     * Stop following the old primary and start accepting replicas on the given port
+     */
+    public ReplicationPrimary promote(int port) throws IOException {
+        close();
+        return new ReplicationPrimary(lot, port);
+    }
+
+    @Override
+    public void close() {
+        applier.interrupt();
+        closeSocket();
+    }
+}
+
+/**
+ * Entry point for exercising replication with several processes on loopback:
+ *
+ * <pre>
+ *   java LotReplication primary 7400
+ *   java LotReplication replica localhost 7400 7401
+ *   java LotReplication replica localhost 7401
+ * </pre>
+ *
+ * The primary drives random arrivals and departures; a replica prints its view
+ * once a second and, when given a promote port, takes over if the primary dies.
+ */
+public class LotReplication {
+    static final int MAGIC = 0x50524C32; // "PRL2"
+
+    private static final int ROWS = 3;
+    private static final int COLS = 8;
+    private static final int FLOORS = 3;
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && args[0].equals("primary")) {
+            SmartParkingLotSimulator lot = newLot();
+            runPrimary(lot, new ReplicationPrimary(lot, Integer.parseInt(args[1])));
+        } else if (args.length >= 3 && args[0].equals("replica")) {
+            runReplica(args[1], Integer.parseInt(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : -1);
+        } else {
+            System.out.println("Usage: LotReplication primary <port> | replica <host> <port> [promotePort]");
+        }
+    }
+
+    private static SmartParkingLotSimulator newLot() {
+        return new SmartParkingLotSimulator(ROWS, COLS, FLOORS, new EnhancedBillingSystem());
+    }
+
+    private static void runPrimary(SmartParkingLotSimulator lot, ReplicationPrimary primary) throws Exception {
+        System.out.println("Primary listening on " + primary.getPort());
+        Random random = new Random();
+        VehicleType[] types = VehicleType.values();
+
+        while (true) {
+            List<String> active = lot.getActiveTicketIds();
+            try {
+                if (active.isEmpty() || random.nextInt(100) < 55) {
+                    Vehicle v = SmartParkingLotSimulator.createVehicle(types[random.nextInt(types.length)],
+                            "REP" + random.nextInt(100_000), "Replication Demo", LocalDateTime.now(lot.getClock()));
+                    lot.parkVehicleWithFloorPreference(v, 1 + random.nextInt(FLOORS));
+                } else {
+                    lot.releaseVehicle(active.get(random.nextInt(active.size())));
+                }
+            } catch (ParkingLotException e) {
+                // Full lot or duplicate plate; keep driving traffic
+            }
+            System.out.printf("seq=%d replicated=%d replicas=%d occupied=%d%n", primary.getLastSequence(),
+                    primary.getReplicatedSequence(), primary.getReplicaCount(), lot.getOccupiedSpotCount());
+            Thread.sleep(200);
+        }
+    }
+
+    private static void runReplica(String host, int port, int promotePort) throws Exception {
+        SmartParkingLotSimulator lot = newLot();
+        ReplicationReplica replica = new ReplicationReplica(lot, host, port);
+        CountDownLatch lost = new CountDownLatch(1);
+        replica.setOnPrimaryLost(lost::countDown);
+
+        while (!lost.await(1, TimeUnit.SECONDS)) {
+            System.out.printf("applied=%d occupied=%d floors=%s%n", replica.getAppliedSequence(),
+                    replica.getOccupiedSpotCount(), replica.getFloorOccupancy());
+        }
+
+        if (promotePort < 0) {
+            System.out.println("Primary lost; no promote port configured, exiting.");
+            return;
+        }
+        System.out.println("Primary lost; promoting this replica on port " + promotePort);
+        runPrimary(lot, replica.promote(promotePort));
+    }
+}
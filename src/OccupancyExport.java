@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Read side of an OccupancyExport file, for signage and display processes on
+ * the same host. Reads go straight to the mapping; a read that overlaps a
+ * write is retried, so callers always see one consistent update.
+ */
+class OccupancyExportReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int spots;
+    private final int floors;
+    private final int bitmapWords;
+    private final int bitmapOffset;
+    private final int directoryOffset;
+
+    OccupancyExportReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        if (map.getInt(OccupancyExport.MAGIC_OFFSET) != OccupancyExport.MAGIC
+                || map.getInt(OccupancyExport.LAYOUT_OFFSET) != OccupancyExport.LAYOUT_VERSION) {
+            channel.close();
+            throw new IOException("Not an occupancy export: " + file);
+        }
+        this.spots = map.getInt(OccupancyExport.SPOTS_OFFSET);
+        this.floors = map.getInt(OccupancyExport.FLOORS_OFFSET);
+        this.bitmapWords = OccupancyExport.bitmapWords(spots);
+        this.bitmapOffset = OccupancyExport.bitmapOffset(floors);
+        this.directoryOffset = bitmapOffset + bitmapWords * Long.BYTES;
+    }
+
+    public int getSpotCount() {
+        return spots;
+    }
+
+    public int getFloorCount() {
+        return floors;
+    }
+
+    /**
+     * Spot ID at an index; the directory is written once and never changes
+     */
+    public String getSpotId(int index) {
+        int at = directoryOffset + index * OccupancyExport.SPOT_ID_BYTES;
+        byte[] id = new byte[map.get(at)];
+        map.get(at + 1, id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Free spots on a floor (1-based), from one consistent update
+     */
+    public int getFree(int floor) {
+        int at = OccupancyExport.FLOOR_TABLE_OFFSET + (floor - 1) * 8;
+        while (true) {
+            long before = beginRead();
+            int free = map.getInt(at) - map.getInt(at + 4);
+            if (endRead(before)) return free;
+        }
+    }
+
+    /**
+     * Copy the floor table and spot bitmap as of one update, into caller-owned arrays
+     * (floors and ceil(spots / 64) long words long) so polling allocates nothing.
+     *
+     * @return the update sequence of the copy; unchanged means nothing moved since the last call
+     */
+    public long snapshot(int[] floorCapacity, int[] floorOccupied, long[] occupiedBits) {
+        while (true) {
+            long before = beginRead();
+            for (int f = 0; f < floors; f++) {
+                floorCapacity[f] = map.getInt(OccupancyExport.FLOOR_TABLE_OFFSET + f * 8);
+                floorOccupied[f] = map.getInt(OccupancyExport.FLOOR_TABLE_OFFSET + f * 8 + 4);
+            }
+            for (int w = 0; w < bitmapWords; w++) {
+                occupiedBits[w] = map.getLong(bitmapOffset + w * Long.BYTES);
+            }
+            if (endRead(before)) return before;
+        }
+    }
+
+    private long beginRead() {
+        while (true) {
+            long seq = (long) OccupancyExport.WORD.getAcquire(map, OccupancyExport.SEQUENCE_OFFSET);
+            if ((seq & 1) == 0) return seq;
+            Thread.onSpinWait(); // writer mid-update
+        }
+    }
+
+    private boolean endRead(long before) {
+        VarHandle.acquireFence();
+        return (long) OccupancyExport.WORD.getVolatile(map, OccupancyExport.SEQUENCE_OFFSET) == before;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
+
+/**
+ * Publishes spot occupancy into a memory-mapped file for other processes.
+ *
+ * The file holds a header, a per-floor table of capacity and occupied count,
+ * one bit per spot (set = occupied) and a spot-ID directory. A single
+ * consumer thread on the lot's event bus applies each park/release to the
+ * mapping under a seqlock: the sequence word is odd while an update is in
+ * progress and even otherwise, so readers copy without locks and retry if the
+ * word moved. Gates never touch the file. If the consumer falls a full ring
+ * behind, it rebuilds the mapping from the spots.
+ *
+ * <pre>
+ *   0  int  magic "PKOC"        4  int  layout version
+ *   8  long sequence (seqlock)  16 int  spots   20 int floors
+ *   24 long last update, epoch millis
+ *   32 long last applied event-bus sequence
+ *   40 int  occupied total      44 int  reserved
+ *   48 floors x (int capacity, int occupied)
+ *   then ceil(spots / 64) little-endian long bitmap words, spot i at bit i % 64 of word i / 64
+ *   then spots x 16-byte IDs (length byte + ASCII)
+ * </pre>
+ */
+public class OccupancyExport implements AutoCloseable {
+    static final int MAGIC = 0x434F4B50; // "PKOC" little-endian
+    static final int LAYOUT_VERSION = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int LAYOUT_OFFSET = 4;
+    static final int SEQUENCE_OFFSET = 8;
+    static final int SPOTS_OFFSET = 16;
+    static final int FLOORS_OFFSET = 20;
+    static final int UPDATED_OFFSET = 24;
+    static final int EVENT_SEQUENCE_OFFSET = 32;
+    static final int TOTAL_OFFSET = 40;
+    static final int FLOOR_TABLE_OFFSET = 48;
+    static final int SPOT_ID_BYTES = 16;
+
+    static final VarHandle WORD = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final SmartParkingLotSimulator lot;
+    private final LotLayout layout;
+    private final int spots;
+    private final int floors;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int bitmapOffset;
+    private ParkingEventBus.Subscription subscription;
+    private long seenDropped;
+
+    public OccupancyExport(SmartParkingLotSimulator lot, Path file) throws IOException {
+        this.lot = lot;
+        this.layout = lot.getLayout();
+        this.spots = layout.getSpotCount();
+        this.floors = layout.getFloorCount();
+        this.bitmapOffset = bitmapOffset(floors);
+        int directoryOffset = bitmapOffset + bitmapWords(spots) * Long.BYTES;
+        int size = directoryOffset + spots * SPOT_ID_BYTES;
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+
+        map.putInt(SPOTS_OFFSET, spots);
+        map.putInt(FLOORS_OFFSET, floors);
+        for (int i = 0; i < spots; i++) {
+            String spotId = layout.spotId(i);
+            byte[] id = spotId.getBytes(StandardCharsets.US_ASCII);
+            if (id.length >= SPOT_ID_BYTES) {
+                throw new IllegalArgumentException("Spot ID too long for export: " + spotId);
+            }
+            map.put(directoryOffset + i * SPOT_ID_BYTES, (byte) id.length);
+            map.put(directoryOffset + i * SPOT_ID_BYTES + 1, id);
+        }
+        rebuild(-1);
+        map.putInt(LAYOUT_OFFSET, LAYOUT_VERSION);
+        // Magic last: a reader that sees it also sees a complete first snapshot
+        VarHandle.releaseFence();
+        map.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    static int bitmapWords(int spots) {
+        return (spots + 63) >>> 6;
+    }
+
+    static int bitmapOffset(int floors) {
+        return FLOOR_TABLE_OFFSET + ((floors * 8 + 7) & ~7);
+    }
+
+    /**
+     * Start applying the lot's events to the mapping on a daemon thread
+     */
+    public synchronized void start() {
+        if (subscription != null) return;
+        // Subscribe before the resync so nothing between the two is missed
+        subscription = lot.getEventBus().startConsumer("occupancy-export", this::apply);
+        rebuild(-1);
+    }
+
+    private synchronized void apply(ParkingEvent event) {
+        long dropped = subscription.getDroppedCount();
+        if (dropped != seenDropped) {
+            seenDropped = dropped;
+            rebuild(event.getSequence());
+            return;
+        }
+        boolean parked = event.getType() == ParkingEventType.VEHICLE_PARKED;
+        if (!parked && event.getType() != ParkingEventType.VEHICLE_RELEASED) {
+            return;
+        }
+        int index = layout.indexOf(event.getSpotId());
+        if (index < 0) return;
+        int wordAt = bitmapOffset + (index >>> 6) * Long.BYTES;
+        long bit = 1L << (index & 63);
+        long word = map.getLong(wordAt);
+        if (((word & bit) != 0) == parked) {
+            return; // already reflected, e.g. by a resync
+        }
+        int floorAt = FLOOR_TABLE_OFFSET + (event.getFloor() - 1) * 8 + 4;
+        int delta = parked ? 1 : -1;
+
+        long seq = beginWrite();
+        map.putLong(wordAt, word ^ bit);
+        map.putInt(floorAt, map.getInt(floorAt) + delta);
+        map.putInt(TOTAL_OFFSET, map.getInt(TOTAL_OFFSET) + delta);
+        map.putLong(UPDATED_OFFSET, event.getTimestampMillis());
+        map.putLong(EVENT_SEQUENCE_OFFSET, event.getSequence());
+        endWrite(seq);
+    }
+
+    /**
+     * Rewrite the floor table and bitmap from the lot's occupancy bits
+     */
+    private synchronized void rebuild(long eventSequence) {
+        long[] bits = new long[bitmapWords(spots)];
+        lot.copyOccupancy(bits);
+        int total = 0;
+        long seq = beginWrite();
+        for (int f = 1; f <= floors; f++) {
+            int first = layout.floorStart(f);
+            int size = layout.floorSize(f);
+            int occupied = 0;
+            for (int i = first; i < first + size; i++) {
+                if ((bits[i >>> 6] & (1L << (i & 63))) != 0) occupied++;
+            }
+            map.putInt(FLOOR_TABLE_OFFSET + (f - 1) * 8, size);
+            map.putInt(FLOOR_TABLE_OFFSET + (f - 1) * 8 + 4, occupied);
+            total += occupied;
+        }
+        for (int w = 0; w < bits.length; w++) {
+            map.putLong(bitmapOffset + w * Long.BYTES, bits[w]);
+        }
+        map.putInt(TOTAL_OFFSET, total);
+        map.putLong(UPDATED_OFFSET, lot.getClock().millis());
+        map.putLong(EVENT_SEQUENCE_OFFSET, eventSequence);
+        endWrite(seq);
+    }
+
+    private long beginWrite() {
+        long seq = (long) WORD.get(map, SEQUENCE_OFFSET) + 1;
+        WORD.setVolatile(map, SEQUENCE_OFFSET, seq); // odd: update in progress
+        // Plain payload stores may not be seen before the odd sequence
+        VarHandle.storeStoreFence();
+        return seq;
+    }
+
+    private void endWrite(long seq) {
+        WORD.setRelease(map, SEQUENCE_OFFSET, seq + 1);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (subscription != null) {
+            subscription.close();
+        }
+        map.force();
+        channel.close();
+    }
+
+    /**
+     * Demo: "OccupancyExport publish file" drives random traffic into a lot and
+     * exports it; "OccupancyExport watch file" is a sign that prints free spots per floor.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("publish")) {
+            SmartParkingLotSimulator lot = new SmartParkingLotSimulator(4, 10, 3, new EnhancedBillingSystem());
+            try (OccupancyExport export = new OccupancyExport(lot, Path.of(args[1]))) {
+                export.start();
+                Random random = new Random();
+                VehicleType[] types = VehicleType.values();
+                while (true) {
+                    List<String> active = lot.getActiveTicketIds();
+                    try {
+                        if (active.isEmpty() || random.nextInt(100) < 52) {
+                            lot.parkVehicleWithFloorPreference(SmartParkingLotSimulator.createVehicle(
+                                    types[random.nextInt(types.length)], "EXP" + random.nextInt(100_000), null,
+                                    LocalDateTime.now(lot.getClock())),
+                                    1 + random.nextInt(3));
+                        } else {
+                            lot.releaseVehicle(active.get(random.nextInt(active.size())));
+                        }
+                    } catch (ParkingLotException e) {
+                        // Full lot or duplicate plate; keep driving traffic
+                    }
+                    Thread.sleep(50);
+                }
+            }
+        } else if (args.length == 2 && args[0].equals("watch")) {
+            try (OccupancyExportReader reader = new OccupancyExportReader(Path.of(args[1]))) {
+                int floors = reader.getFloorCount();
+                int[] capacity = new int[floors];
+                int[] occupied = new int[floors];
+                long[] bits = new long[bitmapWords(reader.getSpotCount())];
+                long last = -1;
+                while (true) {
+                    long seq = reader.snapshot(capacity, occupied, bits);
+                    if (seq != last) {
+                        StringBuilder line = new StringBuilder();
+                        for (int f = 0; f < floors; f++) {
+                            line.append(String.format("F%d: %3d free   ", f + 1, capacity[f] - occupied[f]));
+                        }
+                        System.out.println(line);
+                        last = seq;
+                    }
+                    Thread.sleep(250);
+                }
+            }
+        } else {
+            System.out.println("Usage: OccupancyExport publish <file> | watch <file>");
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Predicted state of one floor (or the whole lot) as of a point in time
+ */
+class FloorForecast {
+    private final int capacity;
+    private final int occupied;
+    private final int[] freeAhead;
+    private final long secondsToFull;
+    private final double arrivalsPerHour;
+    private final double departuresPerHour;
+
+    FloorForecast(int capacity, int occupied, int[] freeAhead, long secondsToFull,
+                  double arrivalsPerHour, double departuresPerHour) {
+        this.capacity = capacity;
+        this.occupied = occupied;
+        this.freeAhead = freeAhead;
+        this.secondsToFull = secondsToFull;
+        this.arrivalsPerHour = arrivalsPerHour;
+        this.departuresPerHour = departuresPerHour;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getFreeNow() {
+        return capacity - occupied;
+    }
+
+    /**
+     * Expected free spots at OccupancyForecaster.HORIZON_MINUTES[i] minutes ahead
+     */
+    public int getFreeAhead(int horizonIndex) {
+        return freeAhead[horizonIndex];
+    }
+
+    /**
+     * Seconds until the floor is expected to fill, or -1 if not within the next day
+     */
+    public long getSecondsToFull() {
+        return secondsToFull;
+    }
+
+    public double getArrivalsPerHour() {
+        return arrivalsPerHour;
+    }
+
+    public double getDeparturesPerHour() {
+        return departuresPerHour;
+    }
+}
+
+/**
+ * Online arrival/departure rate estimates and short-term occupancy forecasts.
+ *
+ * Every park and release updates, in O(1), an exponentially decaying rate for
+ * its floor, its vehicle type and the whole lot, plus a seasonal profile of
+ * arrivals and departures for each hour of the week. A forecast projects
+ * occupancy forward in five-minute steps using the seasonal profile, scaled
+ * by how far the live rates currently run above or below it; it never looks
+ * at ticket history.
+ */
+public class OccupancyForecaster implements ParkingEventListener {
+    public static final int[] HORIZON_MINUTES = {15, 30, 60};
+
+    private static final double EWMA_TAU_SECONDS = 30 * 60;
+    private static final double SEASONAL_ALPHA = 0.3; // weight of the latest week in the hourly profile
+    private static final double LIVE_RATE_HORIZON_SECONDS = 60 * 60;
+    private static final double MIN_LEVEL = 0.25; // bounds on the live-vs-seasonal correction
+    private static final double MAX_LEVEL = 4;
+    private static final int HOURS_PER_WEEK = 7 * 24;
+    private static final int STEP_SECONDS = 5 * 60;
+    private static final int TIME_TO_FULL_LIMIT_SECONDS = 24 * 60 * 60;
+
+    private final StatSeries numbering;
+    private final int[] capacity;
+    private final int[] occupied;
+    private final RateTracker[] trackers;
+
+    /**
+     * @param floorCapacity spots per floor, indexed from floor 1 (index 0 unused)
+     */
+    public OccupancyForecaster(int[] floorCapacity) {
+        this.numbering = new StatSeries(floorCapacity.length - 1);
+        int floors = numbering.floors();
+        int series = numbering.count();
+        this.capacity = new int[1 + floors];
+        this.occupied = new int[series];
+        this.trackers = new RateTracker[series];
+        for (int floor = 1; floor <= floors; floor++) {
+            capacity[floor] = floorCapacity[floor];
+            capacity[StatSeries.TOTAL] += floorCapacity[floor];
+        }
+        for (int s = 0; s < series; s++) {
+            trackers[s] = new RateTracker();
+        }
+    }
+
+    public StatSeries getSeries() {
+        return numbering;
+    }
+
+    @Override
+    public void onVehicleParked(Ticket ticket) {
+        record(ticket, ticket.getEntryTime(), true);
+    }
+
+    @Override
+    public void onVehicleReleased(Ticket ticket) {
+        record(ticket, ticket.getExitTime(), false);
+    }
+
+    private synchronized void record(Ticket ticket, LocalDateTime at, boolean arrival) {
+        long second = toSecond(at);
+        update(StatSeries.TOTAL, second, arrival);
+        update(ticket.getSpot().getFloor(), second, arrival);
+        update(numbering.type(ticket.getVehicle().getVehicleType()), second, arrival);
+    }
+
+    private void update(int series, long second, boolean arrival) {
+        trackers[series].record(second, arrival);
+        occupied[series] += arrival ? 1 : -1;
+    }
+
+    public synchronized double getArrivalsPerHour(int series, LocalDateTime now) {
+        return trackers[series].liveArrivalRate(toSecond(now)) * 3600;
+    }
+
+    public synchronized double getDeparturesPerHour(int series, LocalDateTime now) {
+        return trackers[series].liveDepartureRate(toSecond(now)) * 3600;
+    }
+
+    /**
+     * Forecast for a floor, or for the whole lot with StatSeries.TOTAL
+     */
+    public synchronized FloorForecast forecast(int floor, LocalDateTime now) {
+        if (floor < 0 || floor > numbering.floors()) {
+            throw new IllegalArgumentException("No floor " + floor);
+        }
+        long start = toSecond(now);
+        RateTracker tracker = trackers[floor];
+        tracker.roll(start);
+
+        int[] freeAhead = new int[HORIZON_MINUTES.length];
+        int nextHorizon = 0;
+        long secondsToFull = occupied[floor] >= capacity[floor] ? 0 : -1;
+        double expected = occupied[floor];
+
+        for (int step = 0; step * STEP_SECONDS < TIME_TO_FULL_LIMIT_SECONDS; step++) {
+            long lead = (long) step * STEP_SECONDS;
+            double net = (tracker.blendedArrivalRate(start, lead) - tracker.blendedDepartureRate(start, lead)) * STEP_SECONDS;
+            double next = Math.max(0, expected + net);
+
+            if (secondsToFull < 0 && next >= capacity[floor]) {
+                // Interpolate inside the step where the floor fills
+                secondsToFull = lead + (long) ((capacity[floor] - expected) / (next - expected) * STEP_SECONDS);
+            }
+            expected = Math.min(capacity[floor], next);
+
+            while (nextHorizon < HORIZON_MINUTES.length && lead + STEP_SECONDS >= HORIZON_MINUTES[nextHorizon] * 60L) {
+                freeAhead[nextHorizon++] = capacity[floor] - (int) Math.round(expected);
+            }
+            if (nextHorizon == HORIZON_MINUTES.length && secondsToFull >= 0) break;
+        }
+
+        return new FloorForecast(capacity[floor], occupied[floor], freeAhead, secondsToFull,
+                tracker.liveArrivalRate(start) * 3600, tracker.liveDepartureRate(start) * 3600);
+    }
+
+    /**
+     * Local date-time as a linear second count; forecasting does not care about DST jumps
+     */
+    private static long toSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Rate state for one series: decaying event rates plus an hour-of-week profile
+     */
+    private static final class RateTracker {
+        private double arrivalLevel;
+        private double departureLevel;
+        private long lastArrival;
+        private long lastDeparture;
+
+        private final double[] seasonalArrivals = new double[HOURS_PER_WEEK];
+        private final double[] seasonalDepartures = new double[HOURS_PER_WEEK];
+        private final boolean[] seasonalSeen = new boolean[HOURS_PER_WEEK];
+        private long openHour = Long.MIN_VALUE;
+        private int hourArrivals;
+        private int hourDepartures;
+
+        void record(long second, boolean arrival) {
+            roll(second);
+            if (arrival) {
+                arrivalLevel = decay(arrivalLevel, second - lastArrival) + 1 / EWMA_TAU_SECONDS;
+                lastArrival = Math.max(lastArrival, second);
+                hourArrivals++;
+            } else {
+                departureLevel = decay(departureLevel, second - lastDeparture) + 1 / EWMA_TAU_SECONDS;
+                lastDeparture = Math.max(lastDeparture, second);
+                hourDepartures++;
+            }
+        }
+
+        /**
+         * Fold finished hours into the seasonal profile; at most one week of empty hours is folded
+         */
+        void roll(long second) {
+            long hour = Math.floorDiv(second, 3600);
+            if (openHour == Long.MIN_VALUE) {
+                openHour = hour;
+                return;
+            }
+            long folds = Math.min(hour - openHour, HOURS_PER_WEEK);
+            for (long i = 0; i < folds; i++) {
+                fold((int) Math.floorMod(openHour + i, (long) HOURS_PER_WEEK));
+                hourArrivals = 0;
+                hourDepartures = 0;
+            }
+            if (hour > openHour) openHour = hour;
+        }
+
+        private void fold(int slot) {
+            if (seasonalSeen[slot]) {
+                seasonalArrivals[slot] += SEASONAL_ALPHA * (hourArrivals - seasonalArrivals[slot]);
+                seasonalDepartures[slot] += SEASONAL_ALPHA * (hourDepartures - seasonalDepartures[slot]);
+            } else {
+                seasonalArrivals[slot] = hourArrivals;
+                seasonalDepartures[slot] = hourDepartures;
+                seasonalSeen[slot] = true;
+            }
+        }
+
+        double liveArrivalRate(long now) {
+            return decay(arrivalLevel, now - lastArrival);
+        }
+
+        double liveDepartureRate(long now) {
+            return decay(departureLevel, now - lastDeparture);
+        }
+
+        double blendedArrivalRate(long now, long lead) {
+            return blend(liveArrivalRate(now), seasonalArrivals, now, lead);
+        }
+
+        double blendedDepartureRate(long now, long lead) {
+            return blend(liveDepartureRate(now), seasonalDepartures, now, lead);
+        }
+
+        /**
+         * Seasonal rate for the target hour, scaled by how busy today is compared
+         * with the profile. The live rate describes roughly the last EWMA_TAU_SECONDS,
+         * so it is compared with the profile for that window, not for the target
+         * hour; that way a known rush-hour step is forecast before it shows up in
+         * the live rate. The correction fades with lead time.
+         */
+        private double blend(double live, double[] seasonal, long now, long lead) {
+            int target = slotOf(now + lead);
+            if (!seasonalSeen[target]) return live;
+            int recent = slotOf(now - (long) EWMA_TAU_SECONDS);
+            double level = 1;
+            if (seasonalSeen[recent] && seasonal[recent] > 0) {
+                level = Math.clamp(live * 3600 / seasonal[recent], MIN_LEVEL, MAX_LEVEL);
+            }
+            double w = Math.exp(-lead / LIVE_RATE_HORIZON_SECONDS);
+            return seasonal[target] / 3600 * (w * level + (1 - w));
+        }
+
+        private static int slotOf(long second) {
+            return (int) Math.floorMod(Math.floorDiv(second, 3600), (long) HOURS_PER_WEEK);
+        }
+
+        private static double decay(double level, long elapsed) {
+            return elapsed <= 0 ? level : level * Math.exp(-elapsed / EWMA_TAU_SECONDS);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Series numbering shared by the lot statistics: series 0 is the whole lot,
+ * 1..floors are the floors, and one series per vehicle type follows.
+ */
+final class StatSeries {
+    static final int TOTAL = 0;
+
+    private static final VehicleType[] TYPES = VehicleType.values();
+
+    private final int floors;
+
+    StatSeries(int floors) {
+        if (floors < 0) {
+            throw new IllegalArgumentException("Negative floor count: " + floors);
+        }
+        this.floors = floors;
+    }
+
+    int floors() {
+        return floors;
+    }
+
+    int count() {
+        return 1 + floors + TYPES.length;
+    }
+
+    int floor(int floor) {
+        if (floor < 1 || floor > floors) {
+            throw new IllegalArgumentException("No floor " + floor);
+        }
+        return floor;
+    }
+
+    int type(VehicleType type) {
+        return 1 + floors + type.ordinal();
+    }
+
+    /**
+     * Series named in a request: total, floor:N or type:NAME
+     */
+    int parse(String name) {
+        String trimmed = name.trim();
+        if (trimmed.equalsIgnoreCase("total")) {
+            return TOTAL;
+        } else if (trimmed.regionMatches(true, 0, "floor:", 0, 6)) {
+            return floor(Integer.parseInt(trimmed.substring(6)));
+        } else if (trimmed.regionMatches(true, 0, "type:", 0, 5)) {
+            return type(VehicleType.valueOf(trimmed.substring(5).toUpperCase()));
+        }
+        throw new IllegalArgumentException("Unknown series: " + name);
+    }
+
+    /**
+     * The series here that another lot's series folds into when merging, or -1.
+     * The whole lot and vehicle types always match; floors match by number
+     * when this lot has the floor.
+     */
+    int match(StatSeries other, int series) {
+        if (series == TOTAL) return TOTAL;
+        if (series <= other.floors) return series <= floors ? series : -1;
+        return 1 + floors + (series - 1 - other.floors);
+    }
+}
+
+/**
+ * A read-out of one series at one resolution. Bucket i covers
+ * [startEpochSecond + i*stepSeconds, +stepSeconds). Windows never extend to
+ * before the store started recording.
+ */
+class OccupancyWindow {
+    private final long startEpochSecond;
+    private final int stepSeconds;
+    private final float[] mean;
+    private final float[] peak;
+
+    OccupancyWindow(long startEpochSecond, int stepSeconds, float[] mean, float[] peak) {
+        this.startEpochSecond = startEpochSecond;
+        this.stepSeconds = stepSeconds;
+        this.mean = mean;
+        this.peak = peak;
+    }
+
+    public long getStartEpochSecond() {
+        return startEpochSecond;
+    }
+
+    public int getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public int size() {
+        return mean.length;
+    }
+
+    public float getMean(int bucket) {
+        return mean[bucket];
+    }
+
+    public float getPeak(int bucket) {
+        return peak[bucket];
+    }
+}
+
+/**
+ * Fixed-memory occupancy history for the whole lot, each floor and each vehicle type.
+ *
+ * Three ring-buffer tiers are kept per series: one bucket per second for the
+ * last hour, per minute for the last week and per hour for the last year. Each
+ * bucket holds the mean and peak occupancy over its span. Closing a second
+ * rolls it into the open minute, closing a minute rolls it into the open hour,
+ * so coarser tiers never need to rescan finer ones. Time is taken from the
+ * tickets themselves and only moves forward; idle gaps are filled in bulk.
+ */
+public class OccupancyTimeSeries implements ParkingEventListener {
+    public enum Resolution {
+        SECOND(1, 60 * 60),
+        MINUTE(60, 7 * 24 * 60),
+        HOUR(60 * 60, 365 * 24);
+
+        private final int stepSeconds;
+        private final int capacity;
+
+        Resolution(int stepSeconds, int capacity) {
+            this.stepSeconds = stepSeconds;
+            this.capacity = capacity;
+        }
+
+        public int getStepSeconds() {
+            return stepSeconds;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+    }
+
+    private static final Resolution[] TIERS = Resolution.values();
+    private static final int ROLLUP = 60; // child buckets per parent bucket, for both roll-ups
+
+    private final StatSeries numbering;
+    private final int seriesCount;
+    private final int[] current;        // live occupancy per series
+    private final float[] secondPeak;   // peak seen during the open second
+    private final float[] steadyPeak;   // scratch: current occupancy as a peak row
+    private final float[][][] means;    // [tier][series][slot]
+    private final float[][][] peaks;
+    private final double[][] rollupSum; // open-bucket accumulators for the minute and hour tiers
+    private final float[][] rollupPeak;
+    private final int[] rollupCount;
+    private final long[] open = new long[TIERS.length]; // open bucket number per tier
+    private final long[] first = new long[TIERS.length]; // first bucket ever recorded per tier
+    private boolean started;
+
+    public OccupancyTimeSeries(int floors) {
+        this.numbering = new StatSeries(floors);
+        this.seriesCount = numbering.count();
+        this.current = new int[seriesCount];
+        this.secondPeak = new float[seriesCount];
+        this.steadyPeak = new float[seriesCount];
+        this.means = new float[TIERS.length][seriesCount][];
+        this.peaks = new float[TIERS.length][seriesCount][];
+        this.rollupSum = new double[TIERS.length][seriesCount];
+        this.rollupPeak = new float[TIERS.length][seriesCount];
+        this.rollupCount = new int[TIERS.length];
+        for (int t = 0; t < TIERS.length; t++) {
+            for (int s = 0; s < seriesCount; s++) {
+                means[t][s] = new float[TIERS[t].capacity];
+                peaks[t][s] = new float[TIERS[t].capacity];
+                Arrays.fill(means[t][s], Float.NaN);
+                Arrays.fill(peaks[t][s], Float.NaN);
+            }
+        }
+    }
+
+    public StatSeries getSeries() {
+        return numbering;
+    }
+
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+
+    @Override
+    public void onVehicleParked(Ticket ticket) {
+        record(ticket, ticket.getEntryTime(), 1);
+    }
+
+    @Override
+    public void onVehicleReleased(Ticket ticket) {
+        record(ticket, ticket.getExitTime(), -1);
+    }
+
+    private synchronized void record(Ticket ticket, LocalDateTime at, int delta) {
+        advance(toEpochSecond(at));
+        bump(StatSeries.TOTAL, delta);
+        bump(ticket.getSpot().getFloor(), delta);
+        bump(numbering.type(ticket.getVehicle().getVehicleType()), delta);
+    }
+
+    private void bump(int series, int delta) {
+        current[series] += delta;
+        secondPeak[series] = Math.max(secondPeak[series], current[series]);
+    }
+
+    public synchronized int getCurrent(int series) {
+        return current[series];
+    }
+
+    /**
+     * Close every bucket that ended before the given time; readers call this
+     * with the lot clock's now so idle periods show up
+     *
+     * @return the time as the epoch second the buckets are keyed by
+     */
+    public synchronized long advanceTo(LocalDateTime now) {
+        long epochSecond = toEpochSecond(now);
+        advance(epochSecond);
+        return epochSecond;
+    }
+
+    /**
+     * Buckets of one series overlapping [fromEpochSecond, toEpochSecond], limited
+     * to closed buckets the tier still holds
+     */
+    public synchronized OccupancyWindow read(int series, Resolution resolution, long fromEpochSecond, long toEpochSecond) {
+        int t = resolution.ordinal();
+        int step = resolution.stepSeconds;
+        int capacity = resolution.capacity;
+        long lo = Math.max(Math.floorDiv(fromEpochSecond, step), Math.max(open[t] - capacity, first[t]));
+        long hi = Math.min(Math.floorDiv(toEpochSecond, step), open[t] - 1);
+        if (!started || hi < lo) {
+            return new OccupancyWindow(fromEpochSecond, step, new float[0], new float[0]);
+        }
+
+        int n = (int) (hi - lo + 1);
+        float[] mean = new float[n];
+        float[] peak = new float[n];
+        for (int i = 0; i < n; i++) {
+            int slot = (int) Math.floorMod(lo + i, (long) capacity);
+            mean[i] = means[t][series][slot];
+            peak[i] = peaks[t][series][slot];
+        }
+        return new OccupancyWindow(lo * step, step, mean, peak);
+    }
+
+    private void advance(long epochSecond) {
+        if (!started) {
+            started = true;
+            for (int t = 0; t < TIERS.length; t++) {
+                open[t] = Math.floorDiv(epochSecond, TIERS[t].stepSeconds);
+                first[t] = open[t];
+            }
+            return;
+        }
+        if (epochSecond <= open[0]) {
+            return; // late or same-second event; time never moves backwards
+        }
+
+        // Close the open second with the peak it saw, then fill the quiet seconds after it
+        close(0, secondPeak);
+        fillConstant(0, epochSecond);
+        for (int s = 0; s < seriesCount; s++) {
+            secondPeak[s] = current[s];
+        }
+    }
+
+    /**
+     * Close the open bucket of a tier and roll it into its parent
+     */
+    private void close(int t, float[] peak) {
+        int slot = (int) Math.floorMod(open[t], (long) TIERS[t].capacity);
+        boolean rollsUp = t + 1 < TIERS.length;
+        for (int s = 0; s < seriesCount; s++) {
+            float m = t == 0 ? current[s] : (float) (rollupSum[t][s] / rollupCount[t]);
+            means[t][s][slot] = m;
+            peaks[t][s][slot] = peak[s];
+            if (rollsUp) {
+                rollupSum[t + 1][s] += m;
+                rollupPeak[t + 1][s] = rollupCount[t + 1] == 0 ? peak[s] : Math.max(rollupPeak[t + 1][s], peak[s]);
+            }
+        }
+        if (t > 0) {
+            rollupCount[t] = 0;
+            Arrays.fill(rollupSum[t], 0);
+        }
+        open[t]++;
+        if (rollsUp) {
+            rollupCount[t + 1]++;
+            if (Math.floorMod(open[t], (long) ROLLUP) == 0) {
+                close(t + 1, rollupPeak[t + 1]);
+            }
+        }
+    }
+
+    /**
+     * Advance a tier to the target bucket while occupancy is unchanged. Whole
+     * parent buckets are written in one pass, so a long idle gap costs at most
+     * one ring's worth of writes per tier.
+     */
+    private void fillConstant(int t, long target) {
+        int capacity = TIERS[t].capacity;
+        boolean rollsUp = t + 1 < TIERS.length;
+        while (open[t] < target) {
+            long remaining = target - open[t];
+            if (!rollsUp && remaining > capacity) {
+                open[t] = target - capacity;
+            } else if (rollsUp && Math.floorMod(open[t], (long) ROLLUP) == 0 && remaining >= ROLLUP
+                    && rollupCount[t + 1] == 0) {
+                long whole = remaining / ROLLUP;
+                long end = open[t] + whole * ROLLUP;
+                writeConstant(t, Math.max(open[t], end - capacity), end);
+                open[t] = end;
+                fillConstant(t + 1, open[t + 1] + whole);
+            } else {
+                if (t > 0) {
+                    for (int s = 0; s < seriesCount; s++) {
+                        rollupSum[t][s] += current[s];
+                        rollupPeak[t][s] = rollupCount[t] == 0 ? current[s] : Math.max(rollupPeak[t][s], current[s]);
+                    }
+                    rollupCount[t]++;
+                }
+                close(t, t == 0 ? constantPeak() : rollupPeak[t]);
+            }
+        }
+    }
+
+    private float[] constantPeak() {
+        for (int s = 0; s < seriesCount; s++) {
+            steadyPeak[s] = current[s];
+        }
+        return steadyPeak;
+    }
+
+    private void writeConstant(int t, long from, long to) {
+        int capacity = TIERS[t].capacity;
+        for (long b = from; b < to; b++) {
+            int slot = (int) Math.floorMod(b, (long) capacity);
+            for (int s = 0; s < seriesCount; s++) {
+                means[t][s][slot] = current[s];
+                peaks[t][s][slot] = current[s];
+            }
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,314 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+enum ParkingEventType {
+    VEHICLE_PARKED,
+    VEHICLE_RELEASED,
+    RESERVATION_EXPIRED,
+    LOT_FULL
+}
+
+/**
+ * One pre-allocated ring slot. Subscribers receive their own copy, which is
+ * only valid until the handler returns.
+ */
+class ParkingEvent {
+    long sequence;
+    ParkingEventType type;
+    long timestampMillis;
+    String ticketId;
+    String licensePlate;
+    VehicleType vehicleType;
+    String spotId;
+    int floor;
+    double charges;
+
+    void copyFrom(ParkingEvent other) {
+        sequence = other.sequence;
+        type = other.type;
+        timestampMillis = other.timestampMillis;
+        ticketId = other.ticketId;
+        licensePlate = other.licensePlate;
+        vehicleType = other.vehicleType;
+        spotId = other.spotId;
+        floor = other.floor;
+        charges = other.charges;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public ParkingEventType getType() {
+        return type;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    public String getSpotId() {
+        return spotId;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public double getCharges() {
+        return charges;
+    }
+}
+
+interface ParkingEventHandler {
+    void onEvent(ParkingEvent event);
+}
+
+/**
+ * Pre-allocated ring buffer of typed park/release notifications.
+ *
+ * Gates claim a sequence with one atomic increment, take its slot from the
+ * previous lap with a CAS, fill it in place and publish it with a release
+ * store; nothing is allocated and nothing waits on subscribers. A gate only
+ * waits when the gate a full ring behind it has not finished the same slot.
+ * Each subscriber tracks its own sequence and copies slots out seqlock-style.
+ * A subscriber that falls a full ring behind skips ahead and counts the
+ * events it lost, so a slow consumer can never block a gate.
+ */
+public class ParkingEventBus {
+    private static final VarHandle SLOT_SEQUENCE;
+    private static final long WRITING = Long.MIN_VALUE;
+    private static final int SPINS_BEFORE_PARK = 64;
+
+    static {
+        try {
+            SLOT_SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "published", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Clock clock;
+
+    public ParkingEventBus(int capacity) {
+        this(capacity, Clock.systemUTC());
+    }
+
+    public ParkingEventBus(int capacity, Clock clock) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.clock = clock;
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot(i - capacity);
+        }
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Sequence the next published event will get
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public void publishParked(Ticket ticket) {
+        Vehicle v = ticket.getVehicle();
+        publish(ParkingEventType.VEHICLE_PARKED, clock.millis(), ticket.getTicketId(),
+                v.getLicensePlate(), v.getVehicleType(), ticket.getSpot().getSpotId(), ticket.getSpot().getFloor(), 0);
+    }
+
+    public void publishReleased(Ticket ticket) {
+        Vehicle v = ticket.getVehicle();
+        publish(ParkingEventType.VEHICLE_RELEASED, clock.millis(), ticket.getTicketId(),
+                v.getLicensePlate(), v.getVehicleType(), ticket.getSpot().getSpotId(), ticket.getSpot().getFloor(),
+                ticket.getChargesPaid());
+    }
+
+    public void publish(ParkingEventType type, long timestampMillis, String ticketId, String licensePlate,
+                        VehicleType vehicleType, String spotId, int floor, double charges) {
+        long seq = cursor.getAndIncrement();
+        Slot slot = ring[(int) seq & mask];
+
+        // The slot still holds its previous lap until that writer has published it
+        long previousLap = seq - ring.length;
+        for (int spins = 0; !SLOT_SEQUENCE.compareAndSet(slot, previousLap, WRITING); spins++) {
+            if (spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1); // that writer may be descheduled
+            }
+        }
+        // Plain field stores may not be seen before the WRITING mark
+        VarHandle.storeStoreFence();
+        ParkingEvent e = slot.event;
+        e.sequence = seq;
+        e.type = type;
+        e.timestampMillis = timestampMillis;
+        e.ticketId = ticketId;
+        e.licensePlate = licensePlate;
+        e.vehicleType = vehicleType;
+        e.spotId = spotId;
+        e.floor = floor;
+        e.charges = charges;
+        SLOT_SEQUENCE.setRelease(slot, seq);
+
+        for (Subscription s : subscriptions) {
+            s.signal();
+        }
+    }
+
+    /**
+     * Subscribe to events published from now on.
+     *
+     * @param onAvailable run on the publishing thread when an armed subscription
+     *                    sees a new event; must be quick (e.g. unpark or invokeLater). May be null.
+     */
+    public Subscription subscribe(Runnable onAvailable) {
+        Subscription s = new Subscription(cursor.get(), onAvailable);
+        subscriptions.add(s);
+        return s;
+    }
+
+    /**
+     * Drain a subscription on its own daemon thread, parking while idle
+     */
+    public Subscription startConsumer(String name, ParkingEventHandler handler) {
+        Thread[] holder = new Thread[1];
+        Subscription s = subscribe(() -> LockSupport.unpark(holder[0]));
+        holder[0] = new Thread(() -> {
+            while (!s.isClosed()) {
+                if (s.poll(handler, 1024) == 0 && s.arm()) {
+                    LockSupport.park(s);
+                }
+            }
+        }, name);
+        holder[0].setDaemon(true);
+        holder[0].start();
+        return s;
+    }
+
+    private static final class Slot {
+        @SuppressWarnings("unused") // accessed through SLOT_SEQUENCE
+        private volatile long published;
+        private final ParkingEvent event = new ParkingEvent();
+
+        Slot(long previousLap) {
+            this.published = previousLap;
+        }
+    }
+
+    public final class Subscription {
+        private final ParkingEvent view = new ParkingEvent();
+        private final Runnable onAvailable;
+        private final AtomicBoolean armed = new AtomicBoolean();
+        private long next;
+        private long dropped;
+        private volatile boolean closed;
+
+        private Subscription(long start, Runnable onAvailable) {
+            this.next = start;
+            this.onAvailable = onAvailable;
+        }
+
+        /**
+         * Hand up to maxEvents pending events to the handler, in sequence order
+         *
+         * @return number of events delivered
+         */
+        public int poll(ParkingEventHandler handler, int maxEvents) {
+            int delivered = 0;
+            while (delivered < maxEvents && !closed) {
+                Slot slot = ring[(int) next & mask];
+                long seq = (long) SLOT_SEQUENCE.getAcquire(slot);
+                if (seq == next) {
+                    view.copyFrom(slot.event);
+                    VarHandle.acquireFence();
+                    if ((long) SLOT_SEQUENCE.getVolatile(slot) == next) {
+                        next++;
+                        handler.onEvent(view);
+                        delivered++;
+                        continue;
+                    }
+                    seq = (long) SLOT_SEQUENCE.getVolatile(slot);
+                }
+                if (seq > next || (seq == WRITING && cursor.get() - next > ring.length)) {
+                    // Lapped by the writers: skip to the oldest event still in the ring
+                    long oldest = Math.max(next, cursor.get() - ring.length + 1);
+                    dropped += oldest - next;
+                    next = oldest;
+                    continue;
+                }
+                break; // not yet published
+            }
+            return delivered;
+        }
+
+        /**
+         * Ask to be signalled on the next publish.
+         *
+         * @return false if events are already pending; poll again instead of sleeping
+         */
+        public boolean arm() {
+            armed.set(true);
+            if (next < cursor.get()) {
+                armed.set(false);
+                return false;
+            }
+            return true;
+        }
+
+        private void signal() {
+            if (onAvailable != null && armed.get() && armed.compareAndSet(true, false)) {
+                onAvailable.run();
+            }
+        }
+
+        public long getDroppedCount() {
+            return dropped;
+        }
+
+        public long getLag() {
+            return cursor.get() - next;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            if (onAvailable != null) {
+                onAvailable.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 64-bit plate hashing shared by routing and the streaming analytics.
+ * FNV-1a over the characters followed by the MurmurHash3 finalizer so that
+ * plates differing in one character land far apart on the ring.
+ */
+final class PlateHash {
+    private PlateHash() {
+    }
+
+    public static long hash64(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
+
+/**
+ * Where a federated vehicle is parked: the owning lot and its ticket in that lot
+ */
+class FederatedTicket {
+    private final String lotId;
+    private final Ticket ticket;
+
+    public FederatedTicket(String lotId, Ticket ticket) {
+        this.lotId = lotId;
+        this.ticket = ticket;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+}
+
+/**
+ * Multi-lot federation hosting many SmartParkingLotSimulator sites in one JVM.
+ *
+ * Arrivals are routed to a home lot by consistent hashing on the normalized
+ * plate, spilling over to the next lots on the ring when the home lot is full.
+ * A plate directory answers "which lot is this car in" in O(1); each member
+ * lot clears its entries on release, whichever gate released the car.
+ * Network-wide occupancy and revenue are aggregated with fork-join across lots.
+ * Nothing on the gate path takes a federation-wide lock: lot membership is a
+ * copy-on-write ring and the directory is a striped, plate-keyed PlateMap.
+ */
+public class ParkingFederation {
+    private static final int VIRTUAL_NODES_PER_LOT = 64;
+
+    private final Map<String, SmartParkingLotSimulator> lots = new ConcurrentHashMap<>();
+    private final PlateMap<FederatedTicket> plateDirectory = new PlateMap<>();
+    private final Map<String, ParkingEventListener> directoryCleaners = new ConcurrentHashMap<>();
+    private final Object membershipLock = new Object();
+    private volatile HashRing ring = new HashRing(new TreeMap<>(), new String[0], new SmartParkingLotSimulator[0]);
+
+    /**
+     * One lot per site, named after the site, e.g. from LotLayout.loadSites
+     */
+    public static ParkingFederation fromLayouts(Map<String, LotLayout> sites, Chargeable billingSystem) {
+        ParkingFederation federation = new ParkingFederation();
+        for (Map.Entry<String, LotLayout> site : sites.entrySet()) {
+            federation.addLot(site.getKey(), new SmartParkingLotSimulator(site.getValue(), billingSystem));
+        }
+        return federation;
+    }
+
+    public void addLot(String lotId, SmartParkingLotSimulator lot) {
+        Objects.requireNonNull(lotId);
+        Objects.requireNonNull(lot);
+        synchronized (membershipLock) {
+            if (lots.putIfAbsent(lotId, lot) != null) {
+                throw new IllegalArgumentException("Lot " + lotId + " is already part of the federation");
+            }
+            ParkingEventListener cleaner = new DirectoryCleaner(lotId);
+            directoryCleaners.put(lotId, cleaner);
+            lot.addEventListener(cleaner);
+            rebuildRing();
+        }
+    }
+
+    public void removeLot(String lotId) {
+        synchronized (membershipLock) {
+            SmartParkingLotSimulator lot = lots.get(lotId);
+            if (lot == null) {
+                return;
+            }
+            if (lot.getOccupiedSpotCount() > 0) {
+                throw new ParkingLotException("Lot " + lotId + " still has parked vehicles");
+            }
+            lots.remove(lotId);
+            lot.removeEventListener(directoryCleaners.remove(lotId));
+            rebuildRing();
+        }
+    }
+
+    private void rebuildRing() {
+        TreeMap<Long, String> nodes = new TreeMap<>();
+        List<String> ids = new ArrayList<>(lots.keySet());
+        Collections.sort(ids);
+        for (String id : ids) {
+            for (int v = 0; v < VIRTUAL_NODES_PER_LOT; v++) {
+                nodes.put(PlateHash.hash64(id + "#" + v), id);
+            }
+        }
+        SmartParkingLotSimulator[] snapshot = new SmartParkingLotSimulator[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            snapshot[i] = lots.get(ids.get(i));
+        }
+        ring = new HashRing(nodes, ids.toArray(new String[0]), snapshot);
+    }
+
+    /**
+     * Home lot for a plate on the consistent-hash ring
+     */
+    public String routeLot(String licensePlate) {
+        HashRing current = ring;
+        if (current.nodes.isEmpty()) {
+            throw new ParkingLotException("Federation has no lots");
+        }
+        return current.successor(PlateHash.hash64(Vehicle.normalizePlate(licensePlate)));
+    }
+
+    public FederatedTicket parkVehicle(Vehicle vehicle) {
+        String plate = vehicle.getLicensePlate();
+        FederatedTicket reservation = new FederatedTicket(null, null);
+        if (plateDirectory.putIfAbsent(vehicle, reservation) != null) {
+            throw new VehicleAlreadyParkedException(plate);
+        }
+
+        try {
+            HashRing current = ring;
+            for (String lotId : current.walk(PlateHash.hash64(plate))) {
+                SmartParkingLotSimulator lot = lots.get(lotId);
+                if (lot == null) {
+                    continue;
+                }
+                try {
+                    Ticket ticket = lot.parkVehicle(vehicle);
+                    FederatedTicket located = new FederatedTicket(lotId, ticket);
+                    plateDirectory.replace(vehicle, reservation, located);
+                    // A release that ran before the replace found only the reservation
+                    if (!lot.isTicketActive(ticket.getTicketId())) {
+                        plateDirectory.remove(vehicle, located);
+                    }
+                    return located;
+                } catch (ParkingLotFullException e) {
+                    // Spill over to the next lot on the ring
+                }
+            }
+            throw new ParkingLotFullException();
+        } catch (RuntimeException e) {
+            plateDirectory.remove(vehicle, reservation);
+            throw e;
+        }
+    }
+
+    public double releaseVehicle(String licensePlate) {
+        String plate = Vehicle.normalizePlate(licensePlate);
+        FederatedTicket located = locateVehicle(plate);
+        // The lot's DirectoryCleaner drops the directory entry as part of the release
+        return lots.get(located.getLotId()).releaseVehicle(located.getTicket().getTicketId());
+    }
+
+    /**
+     * O(1) answer to "which lot is this car in"
+     */
+    public FederatedTicket locateVehicle(String licensePlate) {
+        FederatedTicket located = plateDirectory.get(licensePlate);
+        if (located == null || located.getLotId() == null) {
+            throw new VehicleNotFoundException(licensePlate);
+        }
+        return located;
+    }
+
+    public SmartParkingLotSimulator getLot(String lotId) {
+        return lots.get(lotId);
+    }
+
+    public Set<String> getLotIds() {
+        return Collections.unmodifiableSet(lots.keySet());
+    }
+
+    /**
+     * Approximate distinct vehicles parked anywhere in the network between from and to,
+     * inclusive. A car visiting two lots counts once.
+     */
+    public long getNetworkUniqueVehicles(LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog();
+        for (SmartParkingLotSimulator lot : lots.values()) {
+            union.merge(lot.getUniqueVehicles().union(StatSeries.TOTAL, from, to));
+        }
+        return union.estimate();
+    }
+
+    public int getNetworkCapacity() {
+        return (int) sumOverLots(SmartParkingLotSimulator::getTotalSpotCount);
+    }
+
+    public int getNetworkOccupancy() {
+        return (int) sumOverLots(SmartParkingLotSimulator::getOccupiedSpotCount);
+    }
+
+    public double getNetworkRevenue() {
+        return sumOverLots(SmartParkingLotSimulator::getTotalRevenueFromHistory);
+    }
+
+    private double sumOverLots(ToDoubleFunction<SmartParkingLotSimulator> perLot) {
+        SmartParkingLotSimulator[] members = ring.lots;
+        return ForkJoinPool.commonPool().invoke(new NetworkSum(members, 0, members.length, perLot));
+    }
+
+    /**
+     * Drops a lot's directory entry when that lot releases the car, so releases
+     * made straight through the lot (GUI, HTTP, gates) free the plate too
+     */
+    private final class DirectoryCleaner implements ParkingEventListener {
+        private final String lotId;
+
+        DirectoryCleaner(String lotId) {
+            this.lotId = lotId;
+        }
+
+        @Override
+        public void onVehicleReleased(Ticket ticket) {
+            FederatedTicket located = plateDirectory.get(ticket.getVehicle());
+            if (located != null && lotId.equals(located.getLotId())
+                    && located.getTicket().getTicketId().equals(ticket.getTicketId())) {
+                plateDirectory.remove(ticket.getVehicle(), located);
+            }
+        }
+    }
+
+    /**
+     * Immutable ring snapshot; replaced wholesale whenever lot membership changes
+     */
+    private static final class HashRing {
+        private final TreeMap<Long, String> nodes;
+        private final String[] lotIds;
+        private final SmartParkingLotSimulator[] lots;
+
+        HashRing(TreeMap<Long, String> nodes, String[] lotIds, SmartParkingLotSimulator[] lots) {
+            this.nodes = nodes;
+            this.lotIds = lotIds;
+            this.lots = lots;
+        }
+
+        String successor(long hash) {
+            Map.Entry<Long, String> entry = nodes.ceilingEntry(hash);
+            return entry != null ? entry.getValue() : nodes.firstEntry().getValue();
+        }
+
+        /**
+         * Distinct lots in ring order starting at the plate's home lot
+         */
+        List<String> walk(long hash) {
+            List<String> order = new ArrayList<>(lotIds.length);
+            Set<String> seen = new HashSet<>();
+            for (String id : nodes.tailMap(hash, true).values()) {
+                if (seen.add(id)) order.add(id);
+                if (order.size() == lotIds.length) return order;
+            }
+            for (String id : nodes.values()) {
+                if (seen.add(id)) order.add(id);
+                if (order.size() == lotIds.length) break;
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Sum of one O(1) per-lot figure, split across the fork-join pool
+     */
+    private static final class NetworkSum extends RecursiveTask<Double> {
+        private static final int THRESHOLD = 16;
+        private final SmartParkingLotSimulator[] lots;
+        private final int from;
+        private final int to;
+        private final ToDoubleFunction<SmartParkingLotSimulator> perLot;
+
+        NetworkSum(SmartParkingLotSimulator[] lots, int from, int to, ToDoubleFunction<SmartParkingLotSimulator> perLot) {
+            this.lots = lots;
+            this.from = from;
+            this.to = to;
+            this.perLot = perLot;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= THRESHOLD) {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += perLot.applyAsDouble(lots[i]);
+                }
+                return sum;
+            }
+            int mid = (from + to) >>> 1;
+            NetworkSum left = new NetworkSum(lots, from, mid, perLot);
+            left.fork();
+            double right = new NetworkSum(lots, mid, to, perLot).compute();
+            return left.join() + right;
+        }
+    }
+}
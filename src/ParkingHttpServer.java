@@ -0,0 +1,450 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless gate API over the JDK's built-in HTTP server. Each request runs on
+ * its own virtual thread, so a gate blocked on a contended spot lock costs no
+ * platform thread. Never touches Swing; start it with
+ * {@code java ParkingHttpServer [port] [layout-file]}.
+ *
+ * <pre>
+ *   POST /park?plate=ABC123&type=CAR&owner=Jane&floor=2
+ *   POST /release?ticket=TKT-1001
+ *   GET  /vehicles/{plate}
+ *   GET  /tickets/{ticketId}
+ *   GET  /occupancy
+ *   GET  /spots/{spotId}
+ *   GET  /spots?floor=2&zone=EV&row=3&column=12
+ *   GET  /occupancy/history?series=floor:2&resolution=minute&from=1767225600&to=1767312000
+ *   GET  /visitors/unique?series=type:car&from=2026-01-01&to=2026-01-31
+ *   GET  /stays/percentiles?series=floor:1
+ *   GET  /charging
+ *   POST /charging/request?ticket=TKT-1001&battery=75&soc=0.2&target=0.9&departure=2026-01-01T18:30
+ * </pre>
+ */
+public class ParkingHttpServer {
+    private static final Logger LOGGER = Logger.getLogger(ParkingHttpServer.class.getName());
+    private static final DateTimeFormatter ISO_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int LOT_ROWS = 3;
+    private static final int LOT_COLS = 8;
+    private static final int FLOORS = 3;
+
+    private final SmartParkingLotSimulator manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ParkingHttpServer(SmartParkingLotSimulator manager, int port) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        server.createContext("/park", exchange -> handle(exchange, "POST", 201, this::park));
+        server.createContext("/release", exchange -> handle(exchange, "POST", 200, this::release));
+        server.createContext("/vehicles/", exchange -> handle(exchange, "GET", 200, this::findVehicle));
+        server.createContext("/tickets/", exchange -> handle(exchange, "GET", 200, this::findTicket));
+        server.createContext("/spots", exchange -> handle(exchange, "GET", 200, this::findSpot));
+        server.createContext("/occupancy", exchange -> handle(exchange, "GET", 200, this::occupancy));
+        server.createContext("/occupancy/history", exchange -> handle(exchange, "GET", 200, this::occupancyHistory));
+        server.createContext("/visitors/unique", exchange -> handle(exchange, "GET", 200, this::uniqueVisitors));
+        server.createContext("/stays/percentiles", exchange -> handle(exchange, "GET", 200, this::stayPercentiles));
+        server.createContext("/charging", exchange -> handle(exchange, "GET", 200, this::charging));
+        server.createContext("/charging/request", exchange -> handle(exchange, "POST", 200, this::requestCharge));
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Route {
+        String respond(HttpExchange exchange, Map<String, String> params);
+    }
+
+    private void handle(HttpExchange exchange, String method, int successStatus, Route route) throws IOException {
+        int status = successStatus;
+        String body;
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                status = 405;
+                body = error("Method not allowed; use " + method);
+            } else {
+                body = route.respond(exchange, readParams(exchange));
+            }
+        } catch (InvalidTicketException | VehicleNotFoundException | SpotNotFoundException e) {
+            status = 404;
+            body = error(e.getMessage());
+        } catch (VehicleAlreadyParkedException e) {
+            status = 409;
+            body = error(e.getMessage());
+        } catch (ParkingLotFullException e) {
+            status = 503;
+            body = error(e.getMessage());
+        } catch (DeadlockPreventionException e) {
+            // Spot lock timed out under contention; the request itself is fine
+            status = 503;
+            body = error(e.getMessage());
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (ParkingLotException e) {
+            status = 409;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Gate request failed", e);
+            status = 500;
+            body = error("Internal error");
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String park(HttpExchange exchange, Map<String, String> params) {
+        String plate = required(params, "plate").trim().toUpperCase();
+        if (plate.length() < 3 || plate.length() > 10) {
+            throw new IllegalArgumentException("License plate must be 3-10 characters.");
+        }
+        VehicleType type = VehicleType.valueOf(params.getOrDefault("type", "CAR").trim().toUpperCase());
+        int floor = Integer.parseInt(params.getOrDefault("floor", "1").trim());
+
+        Vehicle vehicle = SmartParkingLotSimulator.createVehicle(type, plate, params.get("owner"),
+                LocalDateTime.now(manager.getClock()));
+        return ticketJson(manager.parkVehicleWithFloorPreference(vehicle, floor));
+    }
+
+    private String release(HttpExchange exchange, Map<String, String> params) {
+        String ticketId = required(params, "ticket").trim();
+        double charges = manager.releaseVehicle(ticketId);
+        return "{\"ticketId\":" + quote(ticketId) + ",\"charges\":" + Math.round(charges) + "}";
+    }
+
+    private String findVehicle(HttpExchange exchange, Map<String, String> params) {
+        return ticketJson(manager.findTicketByLicense(pathTail(exchange, "/vehicles/")));
+    }
+
+    private String findTicket(HttpExchange exchange, Map<String, String> params) {
+        return ticketJson(manager.findTicketById(pathTail(exchange, "/tickets/")));
+    }
+
+    /**
+     * One spot by ID (/spots/B12F2) or by floor, zone, row and column; zone is
+     * omitted for grid floors. Reports what is parked there, for sensors and enforcement.
+     */
+    private String findSpot(HttpExchange exchange, Map<String, String> params) {
+        String path = exchange.getRequestURI().getPath();
+        ParkingSpot spot;
+        String requested;
+        if (path.length() > "/spots/".length()) {
+            requested = pathTail(exchange, "/spots/");
+            spot = manager.getSpot(requested);
+        } else {
+            int floor = Integer.parseInt(required(params, "floor").trim());
+            String zone = params.getOrDefault("zone", "").trim().toUpperCase();
+            int row = Integer.parseInt(required(params, "row").trim());
+            int column = Integer.parseInt(required(params, "column").trim());
+            requested = "floor " + floor + (zone.isEmpty() ? "" : " zone " + zone) + " row " + row + " column " + column;
+            spot = manager.getSpot(floor, zone, row, column);
+        }
+        if (spot == null) {
+            throw new SpotNotFoundException(requested);
+        }
+
+        StringBuilder json = new StringBuilder(160)
+                .append("{\"spot\":").append(quote(spot.getSpotId()))
+                .append(",\"floor\":").append(spot.getFloor())
+                .append(",\"zone\":").append(quote(spot.getZone()))
+                .append(",\"row\":").append(spot.getRow())
+                .append(",\"column\":").append(spot.getColumn())
+                .append(",\"class\":\"").append(spot.getBayClass().name()).append('"')
+                .append(",\"occupied\":").append(!spot.isAvailable());
+        Vehicle vehicle = spot.getVehicle();
+        if (vehicle != null) {
+            json.append(",\"plate\":").append(quote(vehicle.getLicensePlate()))
+                    .append(",\"type\":\"").append(vehicle.getVehicleType().name()).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private String occupancy(HttpExchange exchange, Map<String, String> params) {
+        int total = manager.getTotalSpotCount();
+        int occupied = manager.getOccupiedSpotCount();
+        StringBuilder json = new StringBuilder(128)
+                .append("{\"total\":").append(total)
+                .append(",\"occupied\":").append(occupied)
+                .append(",\"available\":").append(total - occupied)
+                .append(",\"floors\":{");
+        boolean first = true;
+        for (Map.Entry<Integer, Integer> floor : manager.getFloorOccupancy().entrySet()) {
+            if (!first) json.append(',');
+            json.append('"').append(floor.getKey()).append("\":").append(floor.getValue());
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Series named by the request's series parameter: total (the default), floor:N or type:NAME
+     */
+    private static String seriesName(Map<String, String> params) {
+        return params.getOrDefault("series", "total").trim();
+    }
+
+    /**
+     * One series of the occupancy time-series store. series is total, floor:N or type:NAME;
+     * from/to are epoch seconds and default to the whole retention of the chosen resolution.
+     */
+    private String occupancyHistory(HttpExchange exchange, Map<String, String> params) {
+        OccupancyTimeSeries history = manager.getOccupancyHistory();
+        String seriesName = seriesName(params);
+        int series = history.getSeries().parse(seriesName);
+        OccupancyTimeSeries.Resolution resolution =
+                OccupancyTimeSeries.Resolution.valueOf(params.getOrDefault("resolution", "second").trim().toUpperCase());
+
+        long now = history.advanceTo(LocalDateTime.now(manager.getClock()));
+        long to = params.containsKey("to") ? Long.parseLong(params.get("to").trim()) : now;
+        long from = params.containsKey("from") ? Long.parseLong(params.get("from").trim())
+                : to - (long) resolution.getStepSeconds() * resolution.getCapacity();
+        OccupancyWindow window = history.read(series, resolution, from, to);
+
+        StringBuilder json = new StringBuilder(64 + window.size() * 12)
+                .append("{\"series\":").append(quote(seriesName))
+                .append(",\"resolution\":\"").append(resolution.name()).append('"')
+                .append(",\"start\":").append(window.getStartEpochSecond())
+                .append(",\"step\":").append(window.getStepSeconds())
+                .append(",\"mean\":[");
+        for (int i = 0; i < window.size(); i++) {
+            if (i > 0) json.append(',');
+            appendNumber(json, window.getMean(i));
+        }
+        json.append("],\"peak\":[");
+        for (int i = 0; i < window.size(); i++) {
+            if (i > 0) json.append(',');
+            appendNumber(json, window.getPeak(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Approximate distinct vehicles over a date range. series is as for the occupancy
+     * history; from/to are ISO dates, inclusive, and default to today.
+     */
+    private String uniqueVisitors(HttpExchange exchange, Map<String, String> params) {
+        UniqueVehicleCounter counter = manager.getUniqueVehicles();
+        String seriesName = seriesName(params);
+        int series = counter.getSeries().parse(seriesName);
+        LocalDate today = LocalDate.now(manager.getClock());
+        LocalDate to = params.containsKey("to") ? LocalDate.parse(params.get("to").trim()) : today;
+        LocalDate from = params.containsKey("from") ? LocalDate.parse(params.get("from").trim()) : to;
+
+        return "{\"series\":" + quote(seriesName) + ",\"from\":\"" + from + "\",\"to\":\"" + to
+                + "\",\"uniqueVehicles\":" + counter.estimate(series, from, to) + "}";
+    }
+
+    /**
+     * Median, p90 and p99 of stay minutes and charges for one series (as for the occupancy history)
+     */
+    private String stayPercentiles(HttpExchange exchange, Map<String, String> params) {
+        StayPercentiles percentiles = manager.getStayPercentiles();
+        String seriesName = seriesName(params);
+        int series = percentiles.getSeries().parse(seriesName);
+
+        StringBuilder json = new StringBuilder(160).append("{\"series\":").append(quote(seriesName));
+        appendSummary(json.append(",\"durationMinutes\":"), percentiles.getDurationSummary(series));
+        appendSummary(json.append(",\"charges\":"), percentiles.getChargeSummary(series));
+        return json.append('}').toString();
+    }
+
+    private String charging(HttpExchange exchange, Map<String, String> params) {
+        ChargingStatus status = manager.getChargingScheduler().getStatus(LocalDateTime.now(manager.getClock()));
+        StringBuilder json = new StringBuilder(160)
+                .append("{\"chargers\":").append(status.chargers())
+                .append(",\"charging\":").append(status.charging())
+                .append(",\"waiting\":").append(status.waiting())
+                .append(",\"sitePowerKw\":");
+        appendNumber(json, status.sitePowerKw());
+        json.append(",\"drawKw\":");
+        appendNumber(json, status.drawKw());
+        json.append(",\"energyDeliveredKwh\":");
+        appendNumber(json, status.energyDeliveredKwh());
+        return json.append('}').toString();
+    }
+
+    /**
+     * Battery size in kWh, current and target state of charge (0-1) and expected
+     * departure (ISO local date-time) for a parked electric car
+     */
+    private String requestCharge(HttpExchange exchange, Map<String, String> params) {
+        String ticketId = required(params, "ticket").trim();
+        LocalDateTime departure = LocalDateTime.parse(required(params, "departure").trim(), ISO_TIME);
+        manager.requestCharge(ticketId, Double.parseDouble(required(params, "battery").trim()),
+                Double.parseDouble(required(params, "soc").trim()),
+                Double.parseDouble(params.getOrDefault("target", "0.8").trim()), departure);
+
+        LocalDateTime now = LocalDateTime.now(manager.getClock());
+        ChargingScheduler scheduler = manager.getChargingScheduler();
+        StringBuilder json = new StringBuilder(96).append("{\"ticketId\":").append(quote(ticketId))
+                .append(",\"powerKw\":");
+        appendNumber(json, scheduler.powerOf(ticketId, now));
+        json.append(",\"energyDeliveredKwh\":");
+        appendNumber(json, scheduler.energyDelivered(ticketId, now));
+        return json.append('}').toString();
+    }
+
+    private static void appendSummary(StringBuilder json, PercentileSummary summary) {
+        json.append("{\"count\":").append(summary.count()).append(",\"p50\":");
+        appendNumber(json, summary.p50());
+        json.append(",\"p90\":");
+        appendNumber(json, summary.p90());
+        json.append(",\"p99\":");
+        appendNumber(json, summary.p99());
+        json.append('}');
+    }
+
+    /**
+     * Whole numbers as integers, anything else to two decimals. Float window
+     * figures widen exactly; doubles keep their full range and precision.
+     */
+    private static void appendNumber(StringBuilder json, double value) {
+        if (Double.isNaN(value)) {
+            json.append("null");
+        } else if (value == Math.rint(value)) {
+            json.append((long) value);
+        } else {
+            json.append(Math.round(value * 100) / 100.0);
+        }
+    }
+
+    private String ticketJson(Ticket ticket) {
+        Vehicle v = ticket.getVehicle();
+        StringBuilder json = new StringBuilder(256)
+                .append("{\"ticketId\":").append(quote(ticket.getTicketId()))
+                .append(",\"plate\":").append(quote(v.getLicensePlate()))
+                .append(",\"type\":\"").append(v.getVehicleType().name()).append('"')
+                .append(",\"owner\":").append(quote(v.getOwnerId()))
+                .append(",\"spot\":").append(quote(ticket.getSpot().getSpotId()))
+                .append(",\"floor\":").append(ticket.getSpot().getFloor())
+                .append(",\"entry\":\"").append(ticket.getEntryTime().format(ISO_TIME)).append('"');
+        if (ticket.getExitTime() != null) {
+            json.append(",\"exit\":\"").append(ticket.getExitTime().format(ISO_TIME)).append('"')
+                    .append(",\"charges\":").append(Math.round(ticket.getChargesPaid()));
+            if (ticket.getEnergyKwh() > 0) {
+                json.append(",\"energyKwh\":");
+                appendNumber(json, ticket.getEnergyKwh());
+            }
+        }
+        return json.append(",\"durationMinutes\":").append(ticket.getDuration(LocalDateTime.now(manager.getClock()))).append('}').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static String pathTail(HttpExchange exchange, String prefix) {
+        String tail = exchange.getRequestURI().getPath().substring(prefix.length());
+        if (tail.isEmpty()) {
+            throw new IllegalArgumentException("Missing identifier after " + prefix);
+        }
+        return URLDecoder.decode(tail, StandardCharsets.UTF_8);
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Query string plus, for POSTs, an application/x-www-form-urlencoded body
+     */
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseInto(exchange.getRequestURI().getRawQuery(), params);
+        if (exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = in.readNBytes(4096);
+                if (body.length > 0) {
+                    parseInto(new String(body, StandardCharsets.UTF_8), params);
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void parseInto(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) return;
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LotLayout layout = args.length > 1 ? LotLayout.load(Path.of(args[1])) : LotLayout.grid(LOT_ROWS, LOT_COLS, FLOORS);
+
+        SmartParkingLotSimulator manager = new SmartParkingLotSimulator(layout, new EnhancedBillingSystem());
+        ParkingHttpServer server = new ParkingHttpServer(manager, port);
+        server.start();
+        System.out.println("Gate API listening on port " + server.getPort());
+    }
+}
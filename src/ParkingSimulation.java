@@ -0,0 +1,417 @@
+import java.time.*;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Settable clock for simulations; only the simulation engine moves it
+ */
+class SimulationClock extends Clock {
+    private final ZoneId zone;
+    private volatile long millis;
+
+    public SimulationClock(Instant start, ZoneId zone) {
+        this.millis = start.toEpochMilli();
+        this.zone = zone;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        SimulationClock copy = new SimulationClock(instant(), zone);
+        copy.millis = millis;
+        return copy;
+    }
+}
+
+/**
+ * Arrival intensity in vehicles per hour as a function of simulated time
+ * (seconds since the simulation was created). Arrivals are drawn as a
+ * non-homogeneous Poisson process by thinning against maxPerHour.
+ */
+interface ArrivalRate {
+    double perHour(double simSecond);
+
+    double maxPerHour();
+
+    static ArrivalRate poisson(double perHour) {
+        return new ArrivalRate() {
+            public double perHour(double simSecond) {
+                return perHour;
+            }
+
+            public double maxPerHour() {
+                return perHour;
+            }
+        };
+    }
+
+    /**
+     * One rate per hour of the day, repeated daily
+     */
+    static ArrivalRate rushHour(double[] hourlyRates) {
+        if (hourlyRates.length != 24) {
+            throw new IllegalArgumentException("Need 24 hourly rates, got " + hourlyRates.length);
+        }
+        double[] rates = hourlyRates.clone();
+        double max = 0;
+        for (double r : rates) max = Math.max(max, r);
+        double peak = max;
+        return new ArrivalRate() {
+            public double perHour(double simSecond) {
+                return rates[(int) (simSecond / 3600) % 24];
+            }
+
+            public double maxPerHour() {
+                return peak;
+            }
+        };
+    }
+
+    /**
+     * Add extraPerHour on top of this profile for durationSeconds every periodSeconds,
+     * starting at firstSecond (a stadium event every Saturday evening, say)
+     */
+    default ArrivalRate withSurge(double firstSecond, double periodSeconds, double durationSeconds, double extraPerHour) {
+        ArrivalRate base = this;
+        return new ArrivalRate() {
+            public double perHour(double simSecond) {
+                double since = simSecond - firstSecond;
+                boolean surging = since >= 0 && since % periodSeconds < durationSeconds;
+                return base.perHour(simSecond) + (surging ? extraPerHour : 0);
+            }
+
+            public double maxPerHour() {
+                return base.maxPerHour() + extraPerHour;
+            }
+        };
+    }
+}
+
+/**
+ * How long a vehicle stays, in seconds
+ */
+interface DwellTime {
+    double sampleSeconds(SplittableRandom random);
+
+    static DwellTime exponential(double meanMinutes) {
+        return random -> -Math.log(1 - random.nextDouble()) * meanMinutes * 60;
+    }
+
+    static DwellTime logNormal(double medianMinutes, double sigma) {
+        double mu = Math.log(medianMinutes * 60);
+        return random -> Math.exp(mu + sigma * gaussian(random));
+    }
+
+    static DwellTime uniform(double minMinutes, double maxMinutes) {
+        return random -> (minMinutes + random.nextDouble() * (maxMinutes - minMinutes)) * 60;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; one value per call keeps the sampler stateless
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
+
+/**
+ * Outcome of one simulation run
+ */
+class SimulationReport {
+    long arrivals;
+    long admitted;
+    long rejectedFull;
+    long rejectedDuplicate;
+    long departures;
+    double revenue;
+    int peakOccupancy;
+    double meanOccupancy;
+    Duration simulated;
+    long wallMillis;
+
+    public long getArrivals() {
+        return arrivals;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public long getRejectedFull() {
+        return rejectedFull;
+    }
+
+    public long getRejectedDuplicate() {
+        return rejectedDuplicate;
+    }
+
+    public long getDepartures() {
+        return departures;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public int getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    public double getMeanOccupancy() {
+        return meanOccupancy;
+    }
+
+    public double getRejectionRate() {
+        return arrivals > 0 ? (double) rejectedFull / arrivals : 0;
+    }
+
+    public Duration getSimulated() {
+        return simulated;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Simulated %.1f days in %.2f s%n" +
+                        "  arrivals %,d  admitted %,d  rejected (full) %,d (%.2f%%)  rejected (already parked) %,d%n" +
+                        "  departures %,d  revenue %,.0f%n" +
+                        "  occupancy mean %.1f  peak %d",
+                simulated.toMinutes() / 1440.0, wallMillis / 1000.0,
+                arrivals, admitted, rejectedFull, getRejectionRate() * 100, rejectedDuplicate,
+                departures, revenue, meanOccupancy, peakOccupancy);
+    }
+}
+
+/**
+ * Discrete-event simulation of a lot under synthetic traffic.
+ *
+ * The event calendar is a priority queue of arrivals and departures ordered
+ * by simulated time. Processing an event moves the lot's SimulationClock to
+ * that instant and calls the ordinary park/release path, so billing, the
+ * event bus and the occupancy time series all see simulated time. Only one
+ * arrival is ever queued; each arrival schedules the next one and, when
+ * admitted, its own departure.
+ */
+public class ParkingSimulation {
+    private static final int DEFAULT_POPULATION = 50_000;
+
+    private final SmartParkingLotSimulator lot;
+    private final SimulationClock clock;
+    private final int floors;
+    private final SplittableRandom random;
+    private final PriorityQueue<SimEvent> calendar = new PriorityQueue<>();
+    private ArrivalRate arrivals = ArrivalRate.poisson(60);
+    private DwellTime dwellTime = DwellTime.exponential(120);
+    private final Map<VehicleType, Double> vehicleMix = new EnumMap<>(VehicleType.class);
+    private int population = DEFAULT_POPULATION;
+    private long sequence;
+    private final long originMillis;
+    private double now; // simulated seconds since originMillis
+    private boolean arrivalPending;
+
+    /**
+     * @param lot a lot built on the given clock, e.g. {@code new SmartParkingLotSimulator(r, c, f, billing, clock)}
+     */
+    public ParkingSimulation(SmartParkingLotSimulator lot, SimulationClock clock, long seed) {
+        if (lot.getClock() != clock) {
+            throw new IllegalArgumentException("The lot must run on the simulation clock");
+        }
+        this.lot = lot;
+        this.clock = clock;
+        this.floors = lot.getLayout().getFloorCount();
+        this.random = new SplittableRandom(seed);
+        this.originMillis = clock.millis();
+        vehicleMix.put(VehicleType.CAR, 1.0);
+    }
+
+    public void setArrivals(ArrivalRate arrivals) {
+        this.arrivals = arrivals;
+    }
+
+    public void setDwellTime(DwellTime dwellTime) {
+        this.dwellTime = dwellTime;
+    }
+
+    /**
+     * Relative weights of each vehicle type among arrivals
+     */
+    public void setVehicleMix(Map<VehicleType, Double> weights) {
+        vehicleMix.clear();
+        vehicleMix.putAll(weights);
+    }
+
+    /**
+     * Number of distinct plates arrivals are drawn from; smaller means more repeat visitors
+     */
+    public void setPopulation(int population) {
+        this.population = population;
+    }
+
+    private record SimEvent(double time, long sequence, String ticketId) implements Comparable<SimEvent> {
+        boolean isArrival() {
+            return ticketId == null;
+        }
+
+        @Override
+        public int compareTo(SimEvent other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Advance the simulation by the given horizon. Consecutive runs continue
+     * where the previous one stopped, with vehicles still parked.
+     */
+    public SimulationReport run(Duration horizon) {
+        long wallStart = System.nanoTime();
+        double start = now;
+        double end = now + horizon.toSeconds();
+        SimulationReport report = new SimulationReport();
+
+        double occupancySeconds = 0;
+        int occupancy = lot.getOccupiedSpotCount();
+        if (!arrivalPending) {
+            scheduleNextArrival(now);
+        }
+
+        while (!calendar.isEmpty() && calendar.peek().time() <= end) {
+            SimEvent event = calendar.poll();
+            occupancySeconds += occupancy * (event.time() - now);
+            now = event.time();
+            clock.setMillis(originMillis + (long) (now * 1000));
+
+            if (event.isArrival()) {
+                arrivalPending = false;
+                report.arrivals++;
+                arrive(now, report);
+                scheduleNextArrival(now);
+            } else {
+                report.revenue += lot.releaseVehicle(event.ticketId());
+                report.departures++;
+            }
+            occupancy = lot.getOccupiedSpotCount();
+            report.peakOccupancy = Math.max(report.peakOccupancy, occupancy);
+        }
+
+        occupancySeconds += occupancy * (end - now);
+        now = end;
+        clock.setMillis(originMillis + (long) (end * 1000));
+        report.meanOccupancy = end > start ? occupancySeconds / (end - start) : occupancy;
+        report.simulated = horizon;
+        report.wallMillis = (System.nanoTime() - wallStart) / 1_000_000;
+        return report;
+    }
+
+    private void arrive(double time, SimulationReport report) {
+        VehicleType type = sampleType();
+        String plate = "S" + Long.toString(samplePlate(), 36).toUpperCase();
+        Vehicle vehicle = SmartParkingLotSimulator.createVehicle(type, plate, "Driver-" + plate,
+                LocalDateTime.now(clock));
+        try {
+            Ticket ticket = lot.parkVehicleWithFloorPreference(vehicle, 1 + random.nextInt(floors));
+            report.admitted++;
+            calendar.add(new SimEvent(time + Math.max(1, dwellTime.sampleSeconds(random)), sequence++,
+                    ticket.getTicketId()));
+        } catch (ParkingLotFullException e) {
+            report.rejectedFull++;
+        } catch (VehicleAlreadyParkedException e) {
+            report.rejectedDuplicate++;
+        }
+    }
+
+    /**
+     * Thinning: propose at the peak rate and accept with probability rate(t)/peak
+     */
+    private void scheduleNextArrival(double from) {
+        double peakPerSecond = arrivals.maxPerHour() / 3600;
+        if (peakPerSecond <= 0) return;
+        double t = from;
+        while (true) {
+            t += -Math.log(1 - random.nextDouble()) / peakPerSecond;
+            if (random.nextDouble() * arrivals.maxPerHour() <= arrivals.perHour(t)) {
+                calendar.add(new SimEvent(t, sequence++, null));
+                arrivalPending = true;
+                return;
+            }
+        }
+    }
+
+    private VehicleType sampleType() {
+        double total = 0;
+        for (double w : vehicleMix.values()) total += w;
+        double pick = random.nextDouble() * total;
+        for (Map.Entry<VehicleType, Double> entry : vehicleMix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick <= 0) return entry.getKey();
+        }
+        return VehicleType.CAR;
+    }
+
+    /**
+     * Skewed toward low ids so some plates visit far more often than others
+     */
+    private long samplePlate() {
+        double u = random.nextDouble();
+        return (long) (population * u * u);
+    }
+
+    /**
+     * {@code java ParkingSimulation [days floors rows cols]}: a year of the same
+     * daily rush hours, weekends included, plus a weekly evening surge on a
+     * 2,000-spot lot by default
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 365;
+        int floors = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int cols = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        ZoneId zone = ZoneId.systemDefault();
+        SimulationClock clock = new SimulationClock(LocalDate.now().atStartOfDay(zone).toInstant(), zone);
+        SmartParkingLotSimulator lot = new SmartParkingLotSimulator(rows, cols, floors, new EnhancedBillingSystem(), clock);
+        lot.setRetainClosedTickets(false);
+
+        double capacity = rows * cols * floors;
+        double[] profile = new double[24];
+        for (int h = 0; h < 24; h++) {
+            // Morning and evening peaks over a low overnight floor, scaled to the lot size
+            double morning = Math.exp(-Math.pow(h - 8, 2) / 2);
+            double evening = Math.exp(-Math.pow(h - 17.5, 2) / 3);
+            profile[h] = capacity * (0.03 + 0.35 * morning + 0.25 * evening);
+        }
+
+        ParkingSimulation simulation = new ParkingSimulation(lot, clock, 42);
+        simulation.setArrivals(ArrivalRate.rushHour(profile)
+                .withSurge(5 * 86400 + 18 * 3600, 7 * 86400, 4 * 3600, capacity * 0.5));
+        simulation.setDwellTime(DwellTime.logNormal(150, 0.8));
+        simulation.setVehicleMix(Map.of(VehicleType.CAR, 0.6, VehicleType.SUV, 0.15, VehicleType.BIKE, 0.12,
+                VehicleType.ELECTRIC_CAR, 0.1, VehicleType.TRUCK, 0.03));
+
+        System.out.println(simulation.run(Duration.ofDays(days)));
+    }
+}
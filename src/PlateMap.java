@@ -0,0 +1,464 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Packs a plate of up to 10 ASCII letters and digits into one long, in
+ * bijective base 37 ('0'-'9' are 1-10, 'A'-'Z' are 11-36, no zero digit).
+ * Case and surrounding whitespace are folded the same way as
+ * Vehicle.normalizePlate, so "ab12 " and "AB12" get the same key. Every key
+ * is positive; anything else is reported as NOT_PACKABLE.
+ */
+final class PlateKey {
+    static final long NOT_PACKABLE = 0L;
+    static final int MAX_LENGTH = 10;
+
+    private static final int RADIX = 37;
+
+    private PlateKey() {
+    }
+
+    static long encode(CharSequence plate) {
+        int start = 0;
+        int end = plate.length();
+        while (start < end && plate.charAt(start) <= ' ') start++;
+        while (end > start && plate.charAt(end - 1) <= ' ') end--;
+        if (end == start || end - start > MAX_LENGTH) {
+            return NOT_PACKABLE;
+        }
+        long key = 0;
+        for (int i = start; i < end; i++) {
+            char c = plate.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0' + 1;
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 11;
+            } else if (c >= 'a' && c <= 'z') {
+                digit = c - 'a' + 11;
+            } else {
+                return NOT_PACKABLE;
+            }
+            key = key * RADIX + digit;
+        }
+        return key;
+    }
+
+    static String decode(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Not a packed plate: " + key);
+        }
+        char[] chars = new char[MAX_LENGTH];
+        int pos = MAX_LENGTH;
+        while (key > 0) {
+            int digit = (int) (key % RADIX);
+            chars[--pos] = digit <= 10 ? (char) ('0' + digit - 1) : (char) ('A' + digit - 11);
+            key /= RADIX;
+        }
+        return new String(chars, pos, MAX_LENGTH - pos);
+    }
+}
+
+/**
+ * Slots of an open-addressing table keyed by positive longs: linear probing
+ * from the key's mixed hash and backward-shift deletion, so lookups never
+ * need tombstones. Subclasses keep their values in an array parallel to keys
+ * and move them whenever the table moves an entry.
+ *
+ * Not thread-safe. slotIn tolerates a racing writer (it terminates, possibly
+ * with a wrong answer), so callers can probe under an optimistic read and
+ * validate afterwards.
+ */
+abstract class LongKeyTable {
+    static final long EMPTY = 0L;
+
+    long[] keys;
+    int size;
+
+    LongKeyTable(int capacity) {
+        keys = new long[capacity];
+    }
+
+    /**
+     * Power-of-two capacity that holds expected entries below the load factor
+     */
+    static int capacityFor(int expected) {
+        return Integer.highestOneBit(Math.max(8, expected * 4 / 3) - 1) << 1;
+    }
+
+    /**
+     * Slot of key in k, or -1
+     */
+    static int slotIn(long[] k, long key, long hash) {
+        int mask = k.length - 1;
+        int i = (int) hash & mask;
+        for (int probes = 0; probes < k.length; probes++) {
+            long found = k[i];
+            if (found == key) return i;
+            if (found == EMPTY) return -1;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Slot of key, or ~slot of the empty slot where it belongs
+     */
+    final int probe(long key, long hash) {
+        int mask = keys.length - 1;
+        int i = (int) hash & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    /**
+     * Claim the empty slot probe returned for key, once its value is in place
+     */
+    final void insert(int slot, long key) {
+        keys[slot] = key;
+        if (++size * 4 > keys.length * 3) {
+            resize();
+        }
+    }
+
+    /**
+     * Backward-shift deletion: pull later entries of the probe run into the hole
+     */
+    final void delete(int hole) {
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = (int) PlateHash.mix64(keys[i]) & mask;
+            // Move the entry back unless its home lies cyclically in (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                moveValue(i, hole);
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        clearValue(hole);
+        size--;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] newKeys = new long[oldKeys.length * 2];
+        int[] moved = new int[oldKeys.length];
+        int mask = newKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            moved[j] = -1;
+            if (oldKeys[j] == EMPTY) continue;
+            int i = (int) PlateHash.mix64(oldKeys[j]) & mask;
+            while (newKeys[i] != EMPTY) i = (i + 1) & mask;
+            newKeys[i] = oldKeys[j];
+            moved[j] = i;
+        }
+        // Readers check the lengths match, so publish values first
+        resizeValues(moved, newKeys.length);
+        keys = newKeys;
+    }
+
+    abstract void moveValue(int from, int to);
+
+    abstract void clearValue(int slot);
+
+    /**
+     * Replace the values with an array of capacity, the value at slot j going to moved[j] (-1: empty)
+     */
+    abstract void resizeValues(int[] moved, int capacity);
+}
+
+/**
+ * Open-addressing map from positive long keys to int values. Not thread-safe;
+ * get tolerates a racing writer like LongKeyTable.slotIn.
+ */
+final class LongIntMap extends LongKeyTable {
+    static final int MISSING = Integer.MIN_VALUE;
+
+    private int[] values;
+
+    LongIntMap(int expected) {
+        super(capacityFor(expected));
+        values = new int[keys.length];
+    }
+
+    int get(long key) {
+        long[] k = keys;
+        int[] v = values;
+        if (k.length != v.length) return MISSING;
+        int slot = slotIn(k, key, PlateHash.mix64(key));
+        return slot < 0 ? MISSING : v[slot];
+    }
+
+    /**
+     * @return the previous value, or MISSING
+     */
+    int put(long key, int value) {
+        int slot = probe(key, PlateHash.mix64(key));
+        if (slot >= 0) {
+            int old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        values[~slot] = value;
+        insert(~slot, key);
+        return MISSING;
+    }
+
+    int remove(long key) {
+        int slot = probe(key, PlateHash.mix64(key));
+        if (slot < 0) return MISSING;
+        int removed = values[slot];
+        delete(slot);
+        return removed;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+    }
+
+    @Override
+    void resizeValues(int[] moved, int capacity) {
+        int[] resized = new int[capacity];
+        for (int j = 0; j < moved.length; j++) {
+            if (moved[j] >= 0) resized[moved[j]] = values[j];
+        }
+        values = resized;
+    }
+}
+
+/**
+ * Concurrent open-addressing map from positive long keys to objects.
+ *
+ * Each stripe is a LongKeyTable with the values in a parallel array, so an
+ * entry costs a long and a reference instead of a hash node and a boxed key.
+ * Each stripe has its own StampedLock; reads are optimistic and only fall back
+ * to the read lock if a writer got in the way.
+ */
+final class LongKeyMap<V> {
+    private static final int STRIPE_BITS = 4;
+    private static final int INITIAL_CAPACITY = 16; // per stripe, power of two
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    LongKeyMap() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long hash = PlateHash.mix64(key);
+        Stripe s = stripeFor(hash);
+        long stamp = s.lock.tryOptimisticRead();
+        Object value = s.find(key, hash);
+        if (!s.lock.validate(stamp)) {
+            stamp = s.lock.readLock();
+            try {
+                value = s.find(key, hash);
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        return (V) value;
+    }
+
+    /**
+     * @return the value already present, or null if the new one was stored
+     */
+    @SuppressWarnings("unchecked")
+    V putIfAbsent(long key, V value) {
+        long hash = PlateHash.mix64(key);
+        Stripe s = stripeFor(hash);
+        long stamp = s.lock.writeLock();
+        try {
+            return (V) s.store(key, hash, value, true);
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        long hash = PlateHash.mix64(key);
+        Stripe s = stripeFor(hash);
+        long stamp = s.lock.writeLock();
+        try {
+            return (V) s.store(key, hash, value, false);
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean replace(long key, V expected, V value) {
+        long hash = PlateHash.mix64(key);
+        Stripe s = stripeFor(hash);
+        long stamp = s.lock.writeLock();
+        try {
+            int slot = s.probe(key, hash);
+            if (slot < 0 || s.values[slot] != expected) return false;
+            s.values[slot] = value;
+            return true;
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove the entry if it maps to expected, or whatever it maps to when expected is null
+     *
+     * @return the removed value, or null if nothing was removed
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key, V expected) {
+        long hash = PlateHash.mix64(key);
+        Stripe s = stripeFor(hash);
+        long stamp = s.lock.writeLock();
+        try {
+            int slot = s.probe(key, hash);
+            if (slot < 0 || (expected != null && s.values[slot] != expected)) return null;
+            Object removed = s.values[slot];
+            s.delete(slot);
+            return (V) removed;
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe s : stripes) {
+            long stamp = s.lock.readLock();
+            try {
+                size += s.size;
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe extends LongKeyTable {
+        final StampedLock lock = new StampedLock();
+        Object[] values = new Object[INITIAL_CAPACITY];
+
+        Stripe() {
+            super(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Lookup that tolerates racing writers: the caller validates the stamp,
+         * so a torn read only has to terminate, not be right
+         */
+        Object find(long key, long hash) {
+            long[] k = keys;
+            Object[] v = values;
+            if (k.length != v.length) return null;
+            int slot = slotIn(k, key, hash);
+            return slot < 0 ? null : v[slot];
+        }
+
+        Object store(long key, long hash, Object value, boolean onlyIfAbsent) {
+            int slot = probe(key, hash);
+            if (slot >= 0) {
+                Object old = values[slot];
+                if (!onlyIfAbsent) values[slot] = value;
+                return old;
+            }
+            values[~slot] = value;
+            insert(~slot, key);
+            return null;
+        }
+
+        @Override
+        void moveValue(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clearValue(int slot) {
+            values[slot] = null;
+        }
+
+        @Override
+        void resizeValues(int[] moved, int capacity) {
+            Object[] resized = new Object[capacity];
+            for (int j = 0; j < moved.length; j++) {
+                if (moved[j] >= 0) resized[moved[j]] = values[j];
+            }
+            values = resized;
+        }
+    }
+}
+
+/**
+ * Plate-keyed concurrent map. Plates that pack into a long (the usual case:
+ * up to 10 letters and digits) live in a primitive LongKeyMap, so lookups
+ * neither allocate nor hash strings. Anything else falls back to a
+ * ConcurrentHashMap on the normalized plate.
+ */
+public class PlateMap<V> {
+    private final LongKeyMap<V> packed = new LongKeyMap<>();
+    private final Map<String, V> unpacked = new ConcurrentHashMap<>();
+
+    /**
+     * Look up by a plate as typed at a gate; case and surrounding whitespace are ignored
+     */
+    public V get(CharSequence plate) {
+        long key = PlateKey.encode(plate);
+        return key != PlateKey.NOT_PACKABLE ? packed.get(key) : unpacked.get(Vehicle.normalizePlate(plate.toString()));
+    }
+
+    public V get(Vehicle vehicle) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? packed.get(key) : unpacked.get(vehicle.getLicensePlate());
+    }
+
+    /**
+     * @return the value already registered for the vehicle's plate, or null if value was stored
+     */
+    public V putIfAbsent(Vehicle vehicle, V value) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? packed.putIfAbsent(key, value)
+                : unpacked.putIfAbsent(vehicle.getLicensePlate(), value);
+    }
+
+    public V put(Vehicle vehicle, V value) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? packed.put(key, value) : unpacked.put(vehicle.getLicensePlate(), value);
+    }
+
+    public boolean replace(Vehicle vehicle, V expected, V value) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? packed.replace(key, expected, value)
+                : unpacked.replace(vehicle.getLicensePlate(), expected, value);
+    }
+
+    public V remove(Vehicle vehicle) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? packed.remove(key, null) : unpacked.remove(vehicle.getLicensePlate());
+    }
+
+    public boolean remove(Vehicle vehicle, V expected) {
+        long key = vehicle.getPlateKey();
+        return key != PlateKey.NOT_PACKABLE ? packed.remove(key, expected) != null
+                : unpacked.remove(vehicle.getLicensePlate(), expected);
+    }
+
+    public int size() {
+        return packed.size() + unpacked.size();
+    }
+}
@@ -1,17 +1,35 @@
 import javax.swing.*;
 import javax.swing.border.*;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -59,111 +77,366 @@ class ModernButton extends JButton {
     }
 }
 
-class ParkingSpotPanel extends JPanel {
-    private final ParkingSpot spot;
-    private final JLabel iconLabel;
-    private final JLabel infoLabel;
-    private final JLabel floorLabel;
-    private static final Font ICON_FONT = new Font("Arial Emoji", Font.BOLD, 32);
-    private static final Font INFO_FONT = new Font("Arial UI", Font.BOLD, 11);
-    private static final Font FLOOR_FONT = new Font("Arial UI", Font.BOLD, 10);
-
-    public ParkingSpotPanel(ParkingSpot spot) {
-        this.spot = Objects.requireNonNull(spot);
-        setLayout(new BorderLayout(0, 0));
-        setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(Color.GRAY, 1),
-                BorderFactory.createEmptyBorder(5, 5, 5, 5)
-        ));
-        setPreferredSize(new Dimension(120, 100));
+/**
+ * One floor of the grid view: its spots placed at their zone, row and column,
+ * read through the lot as cells are painted, and spot IDs resolved to cells
+ * through the lot layout. Nothing is kept per bay, so a model costs the same
+ * on any floor size.
+ */
+class FloorGridModel {
+    final int floor;
+    final int columns;
+    private final List<ParkingSpot> spots; // views are made only for the cells that are read
+    private final int[] zoneFirstRow;      // grid row of each zone on the floor, plus the total
+    private final LotLayout layout;
+    private final int firstSpot;
+
+    private FloorGridModel(int floor, List<ParkingSpot> spots, int columns, int[] zoneFirstRow,
+                           LotLayout layout, int firstSpot) {
+        this.floor = floor;
+        this.spots = spots;
+        this.columns = Math.max(1, columns);
+        this.zoneFirstRow = zoneFirstRow;
+        this.layout = layout;
+        this.firstSpot = firstSpot;
+    }
 
-        // Floor indicator
-        floorLabel = new JLabel("F" + spot.getFloor(), SwingConstants.RIGHT);
-        floorLabel.setFont(FLOOR_FONT);
-        floorLabel.setForeground(Color.GRAY);
-        add(floorLabel, BorderLayout.NORTH);
+    /**
+     * Floor laid out at the width of its longest row, each zone starting on a
+     * new grid row and each bay in its own row and column; cells past the end
+     * of a short row stay empty
+     */
+    static FloorGridModel build(SmartParkingLotSimulator manager, int floor) {
+        LotLayout layout = manager.getLayout();
+        int zones = layout.zoneCount(floor);
+        int[] zoneFirstRow = new int[zones + 1];
+        for (int z = 0; z < zones; z++) {
+            zoneFirstRow[z + 1] = zoneFirstRow[z] + layout.rowCount(floor, z);
+        }
+        return new FloorGridModel(floor, manager.getSpotsByFloor(floor), layout.widestRow(floor), zoneFirstRow,
+                layout, layout.floorStart(floor));
+    }
 
-        // Main icon
-        iconLabel = new JLabel("", SwingConstants.CENTER);
-        iconLabel.setFont(ICON_FONT);
-        add(iconLabel, BorderLayout.CENTER);
+    static FloorGridModel empty() {
+        return new FloorGridModel(0, Collections.emptyList(), 1, new int[1], null, 0);
+    }
 
-        // Info panel at bottom
-        JPanel infoPanel = new JPanel(new BorderLayout());
-        infoPanel.setOpaque(false);
-        infoLabel = new JLabel("", SwingConstants.CENTER);
-        infoLabel.setFont(INFO_FONT);
-        infoPanel.add(infoLabel, BorderLayout.CENTER);
+    int rows() {
+        return zoneFirstRow[zoneFirstRow.length - 1];
+    }
 
-        // Add small status indicator
-        JLabel statusIndicator = new JLabel("●");
-        statusIndicator.setFont(new Font("Arial", Font.BOLD, 8));
-        statusIndicator.setForeground(Color.GREEN);
-        infoPanel.add(statusIndicator, BorderLayout.EAST);
+    /**
+     * Spot drawn in a cell, or null for an empty cell
+     */
+    ParkingSpot spotAt(int cell) {
+        int row = cell / columns;
+        if (cell < 0 || row >= rows()) return null;
+        int zone = Arrays.binarySearch(zoneFirstRow, row);
+        if (zone < 0) zone = -zone - 2;
+        int index = layout.indexAt(SpotCoordinates.pack(floor, zone, row - zoneFirstRow[zone] + 1, cell % columns + 1));
+        return index < 0 ? null : spots.get(index - firstSpot);
+    }
 
-        add(infoPanel, BorderLayout.SOUTH);
+    /**
+     * Cell of a spot on this floor, or -1 if the ID is unknown or on another floor
+     */
+    int cellOf(String spotId) {
+        int index = layout == null ? -1 : layout.indexOf(spotId);
+        if (index < firstSpot || index - firstSpot >= spots.size()) return -1;
+        long coordinates = layout.coordinatesOf(index);
+        int row = zoneFirstRow[SpotCoordinates.zone(coordinates)] + SpotCoordinates.row(coordinates) - 1;
+        return row * columns + SpotCoordinates.column(coordinates) - 1;
+    }
+}
 
-        updateDisplay();
+/**
+ * Custom-painted, scrollable parking grid. Paints only the cells inside the
+ * clip, so cost per frame follows the viewport rather than the floor size, and
+ * caches colors, strokes, fonts and label glyphs by state and vehicle type
+ * instead of building them per cell. Ctrl + mouse wheel zooms.
+ */
+class ParkingGridView extends JComponent implements Scrollable {
+    private static final int CELL_WIDTH = 120;
+    private static final int CELL_HEIGHT = 100;
+    private static final int GAP = 10;
+    private static final int PADDING = 15;
+    private static final float MIN_ZOOM = 0.25f;
+    private static final float MAX_ZOOM = 3f;
+    private static final int GLYPH_CACHE_LIMIT = 4096;
+
+    private static final Color AVAILABLE_FILL = new Color(230, 245, 230);
+    private static final Color AVAILABLE_EDGE = new Color(46, 204, 113);
+    private static final Color AVAILABLE_TEXT = new Color(39, 174, 96);
+    private static final Color ERROR_FILL = new Color(255, 230, 230);
+    private static final Color MUTED_TEXT = new Color(100, 100, 100);
+    private static final Color HIGHLIGHT_EDGE = Color.ORANGE;
+    private static final Map<VehicleType, Color> TYPE_FILL = new EnumMap<>(VehicleType.class);
+    private static final Map<VehicleType, Color> TYPE_EDGE = new EnumMap<>(VehicleType.class);
+    private static final Stroke NORMAL_STROKE = new BasicStroke(2f);
+    private static final Stroke HIGHLIGHT_STROKE = new BasicStroke(3f);
+
+    static {
+        for (VehicleType type : VehicleType.values()) {
+            Color c = type.getColor();
+            TYPE_FILL.put(type, new Color(Math.min(c.getRed() + 40, 255),
+                    Math.min(c.getGreen() + 40, 255), Math.min(c.getBlue() + 40, 255)));
+            TYPE_EDGE.put(type, c.darker());
+        }
     }
 
-    public void updateDisplay() {
-        if (spot.isAvailable()) {
-            setBackground(new Color(230, 245, 230)); // Light green
-            setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(new Color(46, 204, 113), 2),
-                    BorderFactory.createEmptyBorder(5, 5, 5, 5)
-            ));
-            iconLabel.setText("🅿️");
-            iconLabel.setForeground(new Color(39, 174, 96));
-            infoLabel.setText("<html><center><b>" + spot.getSpotId() + "</b><br><font color='green'>AVAILABLE</font></center></html>");
-            setToolTipText("Spot " + spot.getSpotId() + " (Floor " + spot.getFloor() + "): Available");
-        } else {
-            Vehicle vehicle = spot.getVehicle();
-            if (vehicle != null) {
-                VehicleType type = vehicle.getVehicleType();
-                Color typeColor = type.getColor();
-
-                // Gradient background for occupied spots
-                setBackground(new Color(
-                        Math.min(typeColor.getRed() + 40, 255),
-                        Math.min(typeColor.getGreen() + 40, 255),
-                        Math.min(typeColor.getBlue() + 40, 255)
-                ));
+    private final Clock clock; // the lot's; parked durations are measured on it
+    private FloorGridModel model = FloorGridModel.empty();
+    private int columns = 1;
+    private int floor;
+    private float zoom = 1f;
+    private int highlightedIndex = -1;
+
+    // Per-zoom caches, rebuilt only when the zoom changes
+    private Font iconFont;
+    private Font idFont;
+    private Font detailFont;
+    private final Map<String, GlyphVector> idGlyphs = new HashMap<>();
+    private final Map<String, GlyphVector> iconGlyphs = new HashMap<>();
+
+    public ParkingGridView(Clock clock) {
+        this.clock = clock;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        ToolTipManager.sharedInstance().registerComponent(this);
+        rebuildFonts();
+
+        addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                setZoom(zoom * (e.getWheelRotation() < 0 ? 1.1f : 1 / 1.1f));
+            } else if (getParent() != null) {
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+            }
+        });
+    }
 
-                setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(typeColor.darker(), 2),
-                        BorderFactory.createEmptyBorder(5, 5, 5, 5)
-                ));
+    public void setModel(FloorGridModel model) {
+        this.floor = model.floor;
+        this.columns = model.columns;
+        this.model = model;
+        this.highlightedIndex = -1;
+        idGlyphs.clear();
+        revalidate();
+        repaint();
+    }
 
-                iconLabel.setText(type.getIcon());
-                iconLabel.setForeground(typeColor.darker());
+    public int getFloor() {
+        return floor;
+    }
 
-                // Format time since entry
-                Duration duration = Duration.between(vehicle.getEntryTime(), LocalDateTime.now());
-                String timeStr = formatDurationShort(duration.toMinutes());
+    public void setZoom(float newZoom) {
+        float clamped = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        if (clamped == zoom) return;
+        zoom = clamped;
+        rebuildFonts();
+        revalidate();
+        repaint();
+    }
 
-                infoLabel.setText("<html><center><b>" + spot.getSpotId() + "</b><br>" +
-                        "<font size='2'>" + vehicle.getLicensePlate() + "</font><br>" +
-                        "<font size='1' color='gray'>" + timeStr + "</font></center></html>");
+    public float getZoom() {
+        return zoom;
+    }
 
-                setToolTipText(String.format("Spot %s (Floor %s): %s %s, Owner: %s, Entry: %s, Duration: %s",
-                        spot.getSpotId(), spot.getFloor(), type.name(), vehicle.getLicensePlate(),
-                        vehicle.getOwnerId(), vehicle.getEntryTime().format(DateTimeFormatter.ofPattern("HH:mm")), timeStr));
-            } else {
-                setBackground(new Color(255, 230, 230));
-                setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(Color.RED, 2),
-                        BorderFactory.createEmptyBorder(5, 5, 5, 5)
-                ));
-                iconLabel.setText("⚠️");
-                iconLabel.setForeground(Color.RED);
-                infoLabel.setText("<html><center><b>" + spot.getSpotId() + "</b><br><font color='red'>ERROR</font></center></html>");
-                setToolTipText("Spot " + spot.getSpotId() + ": Inconsistent state");
+    private void rebuildFonts() {
+        iconFont = new Font("Arial Emoji", Font.BOLD, Math.max(6, Math.round(32 * zoom)));
+        idFont = new Font("Arial", Font.BOLD, Math.max(5, Math.round(11 * zoom)));
+        detailFont = new Font("Arial", Font.PLAIN, Math.max(5, Math.round(10 * zoom)));
+        idGlyphs.clear();
+        iconGlyphs.clear();
+    }
+
+    /**
+     * Repaint a single cell after its spot changed
+     */
+    public void repaintSpot(String spotId) {
+        int index = model.cellOf(spotId);
+        if (index >= 0) {
+            repaint(cellBounds(index));
+        }
+    }
+
+    public void setHighlightedSpot(String spotId) {
+        int previous = highlightedIndex;
+        highlightedIndex = spotId != null ? model.cellOf(spotId) : -1;
+        if (previous >= 0) repaint(cellBounds(previous));
+        if (highlightedIndex >= 0) {
+            Rectangle bounds = cellBounds(highlightedIndex);
+            repaint(bounds);
+            scrollRectToVisible(bounds);
+        }
+    }
+
+    public boolean isHighlighted(String spotId) {
+        return highlightedIndex >= 0 && model.cellOf(spotId) == highlightedIndex;
+    }
+
+    private int cellWidth() {
+        return Math.round(CELL_WIDTH * zoom);
+    }
+
+    private int cellHeight() {
+        return Math.round(CELL_HEIGHT * zoom);
+    }
+
+    private int gap() {
+        return Math.max(2, Math.round(GAP * zoom));
+    }
+
+    private int rows() {
+        return model.rows();
+    }
+
+    private Rectangle cellBounds(int index) {
+        int row = index / columns;
+        int col = index % columns;
+        return new Rectangle(PADDING + col * (cellWidth() + gap()), PADDING + row * (cellHeight() + gap()),
+                cellWidth(), cellHeight());
+    }
+
+    private int indexAt(Point p) {
+        int col = (p.x - PADDING) / (cellWidth() + gap());
+        int row = (p.y - PADDING) / (cellHeight() + gap());
+        if (p.x < PADDING || p.y < PADDING || col >= columns) return -1;
+        int index = row * columns + col;
+        return row < rows() && model.spotAt(index) != null && cellBounds(index).contains(p) ? index : -1;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int width = PADDING * 2 + columns * cellWidth() + (columns - 1) * gap();
+        int height = PADDING * 2 + rows() * cellHeight() + Math.max(0, rows() - 1) * gap();
+        return new Dimension(width, height);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            Rectangle clip = g2.getClipBounds();
+            if (clip == null) clip = new Rectangle(getSize());
+            g2.setColor(getBackground());
+            g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            int pitchX = cellWidth() + gap();
+            int pitchY = cellHeight() + gap();
+            int firstCol = Math.max(0, (clip.x - PADDING) / pitchX);
+            int lastCol = Math.min(columns - 1, (clip.x + clip.width - PADDING) / pitchX);
+            int firstRow = Math.max(0, (clip.y - PADDING) / pitchY);
+            int lastRow = Math.min(rows() - 1, (clip.y + clip.height - PADDING) / pitchY);
+
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    int index = row * columns + col;
+                    ParkingSpot spot = model.spotAt(index);
+                    if (spot != null) {
+                        paintCell(g2, spot, index, PADDING + col * pitchX, PADDING + row * pitchY, now);
+                    }
+                }
             }
+        } finally {
+            g2.dispose();
         }
+    }
 
-        // Update floor label color based on availability
-        floorLabel.setForeground(spot.isAvailable() ? new Color(100, 100, 100) : new Color(50, 50, 50));
+    private void paintCell(Graphics2D g2, ParkingSpot spot, int index, int x, int y, LocalDateTime now) {
+        Vehicle vehicle = spot.getVehicle();
+        boolean available = spot.isAvailable();
+        int w = cellWidth();
+        int h = cellHeight();
+
+        Color fill;
+        Color edge;
+        Color iconColor;
+        String icon;
+        if (available) {
+            fill = AVAILABLE_FILL;
+            edge = AVAILABLE_EDGE;
+            iconColor = AVAILABLE_TEXT;
+            icon = "🅿️";
+        } else if (vehicle != null) {
+            VehicleType type = vehicle.getVehicleType();
+            fill = TYPE_FILL.get(type);
+            edge = TYPE_EDGE.get(type);
+            iconColor = edge;
+            icon = type.getIcon();
+        } else {
+            fill = ERROR_FILL;
+            edge = Color.RED;
+            iconColor = Color.RED;
+            icon = "⚠️";
+        }
+
+        g2.setColor(fill);
+        g2.fillRect(x, y, w, h);
+        boolean highlighted = index == highlightedIndex;
+        g2.setStroke(highlighted ? HIGHLIGHT_STROKE : NORMAL_STROKE);
+        g2.setColor(highlighted ? HIGHLIGHT_EDGE : edge);
+        g2.drawRect(x + 1, y + 1, w - 2, h - 2);
+
+        if (zoom < 0.5f) {
+            return; // too small for text; color alone carries the state
+        }
+
+        FontRenderContext frc = g2.getFontRenderContext();
+        g2.setColor(iconColor);
+        GlyphVector iconGlyph = glyph(iconGlyphs, icon, iconFont, frc);
+        Rectangle2D iconBounds = iconGlyph.getLogicalBounds();
+        g2.drawGlyphVector(iconGlyph, (float) (x + (w - iconBounds.getWidth()) / 2), y + h * 0.5f);
+
+        g2.setColor(Color.BLACK);
+        GlyphVector idGlyph = glyph(idGlyphs, spot.getSpotId(), idFont, frc);
+        Rectangle2D idBounds = idGlyph.getLogicalBounds();
+        g2.drawGlyphVector(idGlyph, (float) (x + (w - idBounds.getWidth()) / 2), y + h * 0.7f);
+
+        g2.setFont(detailFont);
+        FontMetrics fm = g2.getFontMetrics();
+        String detail;
+        if (available) {
+            g2.setColor(AVAILABLE_TEXT);
+            detail = "AVAILABLE";
+        } else if (vehicle != null) {
+            g2.setColor(MUTED_TEXT);
+            long minutes = Duration.between(vehicle.getEntryTime(), now).toMinutes();
+            detail = vehicle.getLicensePlate() + " · " + formatDurationShort(minutes);
+        } else {
+            g2.setColor(Color.RED);
+            detail = "ERROR";
+        }
+        g2.drawString(detail, x + (w - fm.stringWidth(detail)) / 2, y + h * 0.88f);
+
+        g2.setColor(MUTED_TEXT);
+        String floorTag = "F" + spot.getFloor();
+        g2.drawString(floorTag, x + w - fm.stringWidth(floorTag) - 5, y + fm.getAscent() + 3);
+    }
+
+    private GlyphVector glyph(Map<String, GlyphVector> cache, String text, Font font, FontRenderContext frc) {
+        if (cache.size() > GLYPH_CACHE_LIMIT) cache.clear();
+        return cache.computeIfAbsent(text, t -> font.createGlyphVector(frc, t));
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int index = indexAt(e.getPoint());
+        if (index < 0) return null;
+        ParkingSpot spot = model.spotAt(index);
+        Vehicle vehicle = spot.getVehicle();
+        if (spot.isAvailable()) {
+            return "Spot " + spot.getSpotId() + " (Floor " + spot.getFloor() + "): Available";
+        }
+        if (vehicle == null) {
+            return "Spot " + spot.getSpotId() + ": Inconsistent state";
+        }
+        String timeStr = formatDurationShort(Duration.between(vehicle.getEntryTime(), LocalDateTime.now(clock)).toMinutes());
+        return String.format("Spot %s (Floor %s): %s %s, Owner: %s, Entry: %s, Duration: %s",
+                spot.getSpotId(), spot.getFloor(), vehicle.getVehicleType().name(), vehicle.getLicensePlate(),
+                vehicle.getOwnerId(), vehicle.getEntryTime().format(DateTimeFormatter.ofPattern("HH:mm")), timeStr);
     }
 
     private String formatDurationShort(long totalMinutes) {
@@ -172,35 +445,428 @@ class ParkingSpotPanel extends JPanel {
         long minutes = totalMinutes % 60;
         return hours + "h" + (minutes > 0 ? " " + minutes + "m" : "");
     }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? (cellHeight() + gap()) / 4 : (cellWidth() + gap()) / 4;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport vp && vp.getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport vp && vp.getHeight() > getPreferredSize().height;
+    }
+}
+
+/**
+ * Fixed-capacity operator log shown through a JList. Entries may be logged from
+ * any thread; they queue in a bounded buffer and are flushed to the EDT in one
+ * batch at most every FLUSH_MS. The newest CAPACITY entries live in a ring, and
+ * the level/plate filter is an index ring over it, so memory and append cost
+ * stay constant however long the console runs.
+ */
+class OperatorLogModel extends AbstractListModel<String> {
+    private static final int PENDING_LIMIT = 10_000;
+    private static final int FLUSH_MS = 100;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final int capacity;
+    private final LocalDateTime[] times;
+    private final String[] levels;
+    private final String[] messages;
+    private long appended; // entries ever written to the ring; slot = seq % capacity
+
+    // Sequences of ring entries passing the filter, oldest first
+    private final long[] visible;
+    private int visibleHead;
+    private int visibleSize;
+    private String levelFilter;
+    private String textFilter;
+
+    private final BlockingQueue<PendingEntry> pending = new ArrayBlockingQueue<>(PENDING_LIMIT);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong droppedEntries = new AtomicLong();
+    private final javax.swing.Timer flushTimer;
+    private final List<PendingEntry> batch = new ArrayList<>();
+    private Runnable afterFlush = () -> { };
+
+    private record PendingEntry(LocalDateTime time, String level, String message) {
+    }
+
+    public OperatorLogModel(int capacity) {
+        this.capacity = capacity;
+        this.times = new LocalDateTime[capacity];
+        this.levels = new String[capacity];
+        this.messages = new String[capacity];
+        this.visible = new long[capacity];
+        this.flushTimer = new javax.swing.Timer(FLUSH_MS, _ -> flush());
+        flushTimer.setRepeats(false);
+    }
+
+    public void setAfterFlush(Runnable afterFlush) {
+        this.afterFlush = afterFlush;
+    }
+
+    /**
+     * Thread-safe; never blocks the caller. Entries beyond the pending limit are counted and dropped.
+     */
+    public void log(String level, String message) {
+        if (!pending.offer(new PendingEntry(LocalDateTime.now(), level, message))) {
+            droppedEntries.incrementAndGet();
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(flushTimer::restart);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        pending.drainTo(batch);
+        long dropped = droppedEntries.getAndSet(0);
+        if (dropped > 0) {
+            batch.add(new PendingEntry(LocalDateTime.now(), "WARN", dropped + " log entries dropped under load"));
+        }
+        if (batch.isEmpty()) return;
+
+        int removed = 0;
+        int added = 0;
+        for (PendingEntry entry : batch) {
+            long seq = appended++;
+            int slot = (int) (seq % capacity);
+            times[slot] = entry.time();
+            levels[slot] = entry.level();
+            messages[slot] = entry.message();
+
+            // The entry we just overwrote may still be in the filtered view
+            long oldest = appended - capacity;
+            if (visibleSize > 0 && visible[visibleHead] < oldest) {
+                visibleHead = (visibleHead + 1) % capacity;
+                visibleSize--;
+                removed++;
+            }
+            if (matches(slot)) {
+                visible[(visibleHead + visibleSize) % capacity] = seq;
+                visibleSize++;
+                added++;
+            }
+        }
+        batch.clear();
+
+        if (removed > 0) fireIntervalRemoved(this, 0, removed - 1);
+        if (added > 0) fireIntervalAdded(this, visibleSize - added, visibleSize - 1);
+        afterFlush.run();
+    }
+
+    public void setFilter(String level, String text) {
+        this.levelFilter = level == null || level.equals("ALL") ? null : level;
+        this.textFilter = text == null || text.isBlank() ? null : text.trim().toUpperCase();
+
+        int oldSize = visibleSize;
+        visibleHead = 0;
+        visibleSize = 0;
+        for (long seq = Math.max(0, appended - capacity); seq < appended; seq++) {
+            if (matches((int) (seq % capacity))) {
+                visible[visibleSize++] = seq;
+            }
+        }
+        // Report the size change itself so the list never holds indexes past the end
+        if (oldSize > visibleSize) fireIntervalRemoved(this, visibleSize, oldSize - 1);
+        if (visibleSize > oldSize) fireIntervalAdded(this, oldSize, visibleSize - 1);
+        int kept = Math.min(oldSize, visibleSize);
+        if (kept > 0) fireContentsChanged(this, 0, kept - 1);
+    }
+
+    private boolean matches(int slot) {
+        if (levelFilter != null && !levelFilter.equals(levels[slot])) return false;
+        return textFilter == null || messages[slot].toUpperCase().contains(textFilter);
+    }
+
+    public void clear() {
+        int size = visibleSize;
+        appended = 0;
+        visibleHead = 0;
+        visibleSize = 0;
+        Arrays.fill(times, null);
+        Arrays.fill(levels, null);
+        Arrays.fill(messages, null);
+        if (size > 0) fireIntervalRemoved(this, 0, size - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return visibleSize;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        int slot = (int) (visible[(visibleHead + index) % capacity] % capacity);
+        return "[" + times[slot].format(TIME_FORMAT) + "] " + levels[slot] + ": " + messages[slot];
+    }
+}
+
+/**
+ * Parking history as a read-only table, newest first. Only the row count is
+ * captured when the model is created; rows are fetched from the simulator a
+ * page at a time as the table scrolls to them and a few recent pages are kept,
+ * so opening the history costs the same with ten tickets or ten million.
+ */
+class HistoryTableModel extends AbstractTableModel {
+    private static final int PAGE_SIZE = 500;
+    private static final int CACHED_PAGES = 8;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm");
+
+    private final SmartParkingLotSimulator manager;
+    private final String[] columns;
+    private final int rowCount;
+    private final Map<Integer, List<Ticket>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Ticket>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    public HistoryTableModel(SmartParkingLotSimulator manager, String[] columns) {
+        this.manager = manager;
+        this.columns = columns;
+        this.rowCount = manager.getTicketHistorySize();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 4 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Ticket t = ticketAt(row);
+        if (t == null) return "";
+        Vehicle v = t.getVehicle();
+        return switch (column) {
+            case 0 -> t.getTicketId();
+            case 1 -> v.getLicensePlate();
+            case 2 -> v.getVehicleType().getIcon();
+            case 3 -> t.getSpot().getSpotId();
+            case 4 -> t.getSpot().getFloor();
+            case 5 -> t.getEntryTime().format(TIME_FORMAT);
+            case 6 -> t.getExitTime() != null ? t.getExitTime().format(TIME_FORMAT) : "N/A";
+            case 7 -> SmartParkingGUI.formatDuration(t.getDuration(LocalDateTime.now(manager.getClock())));
+            default -> String.format("%.0f", t.getChargesPaid());
+        };
+    }
+
+    private Ticket ticketAt(int row) {
+        // Row 0 is the newest ticket at the time the model was created
+        int index = rowCount - 1 - row;
+        int page = index / PAGE_SIZE;
+        List<Ticket> tickets = pages.get(page);
+        if (tickets == null) {
+            tickets = manager.getTicketHistoryRange(page * PAGE_SIZE, (page + 1) * PAGE_SIZE);
+            pages.put(page, tickets);
+        }
+        int offset = index - page * PAGE_SIZE;
+        return offset < tickets.size() ? tickets.get(offset) : null;
+    }
+}
+
+/**
+ * Line chart of occupancy windows, one line per series. Long windows are
+ * reduced to one averaged point per pixel column before drawing.
+ */
+class OccupancyChart extends JComponent {
+    private static final Color[] LINE_COLORS = {
+            new Color(52, 152, 219), new Color(231, 76, 60), new Color(46, 204, 113),
+            new Color(155, 89, 182), new Color(230, 126, 34), new Color(52, 73, 94)
+    };
+    private static final int INSET = 30;
+
+    private String[] names = new String[0];
+    private OccupancyWindow[] windows = new OccupancyWindow[0];
+    private float maxValue = 1;
+
+    public OccupancyChart() {
+        setPreferredSize(new Dimension(600, 220));
+        setBackground(Color.WHITE);
+        setOpaque(true);
+    }
+
+    public void setSeries(String[] names, OccupancyWindow[] windows, float maxValue) {
+        this.names = names;
+        this.windows = windows;
+        this.maxValue = Math.max(1, maxValue);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, getWidth(), getHeight());
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int plotWidth = getWidth() - 2 * INSET;
+        int plotHeight = getHeight() - 2 * INSET;
+        if (plotWidth <= 0 || plotHeight <= 0) {
+            g2.dispose();
+            return;
+        }
+
+        // Grid at quarters of the capacity
+        g2.setFont(new Font("Arial", Font.PLAIN, 10));
+        for (int q = 0; q <= 4; q++) {
+            int y = INSET + plotHeight - plotHeight * q / 4;
+            g2.setColor(new Color(230, 230, 235));
+            g2.drawLine(INSET, y, INSET + plotWidth, y);
+            g2.setColor(Color.GRAY);
+            g2.drawString(String.valueOf(Math.round(maxValue * q / 4)), 4, y + 4);
+        }
+
+        for (int s = 0; s < windows.length; s++) {
+            OccupancyWindow w = windows[s];
+            if (w.size() == 0) continue;
+            g2.setColor(LINE_COLORS[s % LINE_COLORS.length]);
+            g2.setStroke(new BasicStroke(1.5f));
+
+            int columns = Math.min(plotWidth, w.size());
+            int prevX = -1;
+            int prevY = -1;
+            for (int c = 0; c < columns; c++) {
+                int from = (int) ((long) c * w.size() / columns);
+                int to = (int) ((long) (c + 1) * w.size() / columns);
+                double sum = 0;
+                int n = 0;
+                for (int i = from; i < to; i++) {
+                    float v = w.getMean(i);
+                    if (!Float.isNaN(v)) {
+                        sum += v;
+                        n++;
+                    }
+                }
+                if (n == 0) {
+                    prevX = -1; // gap before recording started
+                    continue;
+                }
+                int x = INSET + (int) ((long) c * plotWidth / Math.max(1, columns - 1));
+                int y = INSET + plotHeight - (int) Math.round(sum / n / maxValue * plotHeight);
+                if (prevX >= 0) {
+                    g2.drawLine(prevX, prevY, x, y);
+                }
+                prevX = x;
+                prevY = y;
+            }
+
+            g2.drawString(names[s], INSET + 10 + s * 80, INSET - 10);
+        }
+        g2.dispose();
+    }
+}
+
+/**
+ * Runs simulator operations off the Swing EDT and hands results back to it.
+ * A gate call may wait seconds on a contended spot lock; here that only
+ * delays its own callback instead of freezing the console. Callbacks always
+ * run on the EDT, in whatever order the operations finish.
+ */
+class GuiDispatcher {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <T> void submit(Supplier<T> operation, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        CompletableFuture.supplyAsync(operation, executor).whenComplete((result, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (error == null) {
+                        onSuccess.accept(result);
+                    } else {
+                        onFailure.accept(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    }
+                }));
+    }
 }
 
 public class SmartParkingGUI extends JFrame {
     private static final Logger LOGGER = Logger.getLogger(SmartParkingGUI.class.getName());
 
     private SmartParkingLotSimulator manager;
-    private JTextArea logArea;
-    private JPanel gridPanel;
-    private Map<String, ParkingSpotPanel> spotPanelsMap;
-    private JLabel statusLabel, timeLabel, revenueLabel, floorLabel;
+    private OperatorLogModel logModel;
+    private JList<String> logList;
+    private JComboBox<String> logLevelFilter;
+    private JTextField logPlateFilter;
+    private JPanel gridCards; // one pooled view per floor, swapped with a CardLayout
+    private final Map<Integer, ParkingGridView> floorViews = new HashMap<>();
+    private ParkingGridView gridView; // view of the floor currently shown
+    private JLabel statusLabel, timeLabel, revenueLabel, floorLabel, quickStatsLabel;
+    private long displayedVersion = -1;
     private JTextField plateField, ownerField, ticketField, searchField;
     private JComboBox<VehicleType> typeBox;
     private JComboBox<String> floorBox;
     private ModernButton parkButton, releaseButton, findButton, reportsButton;
     private ModernButton copyLastTicketButton, autoParkButton, bulkReleaseButton;
     private String lastParkedTicketId = null;
+    private final GuiDispatcher dispatcher = new GuiDispatcher();
 
     private java.util.Timer highlightEffectTimer;
 
+    // Spot-change feed from the core; repaints are coalesced into one pass per frame
+    private ParkingEventBus.Subscription spotEvents;
+    private javax.swing.Timer frameTimer;
+    private final Set<String> dirtySpots = new HashSet<>();
+    private long droppedEventsSeen;
+    private int currentFloor;
+    private int floors;
+
+    // Default grid when no layout file is given
     private static final int LOT_ROWS = 3;
     private static final int LOT_COLS = 8;
     private static final int FLOORS = 3;
-    private static final DateTimeFormatter LOG_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final int FRAME_MS = 16;
+    private static final int LOG_CAPACITY = 5000;
+    private static final int TOP_VISITORS = 20;
+    private static final int[] VISITOR_WINDOWS_DAYS = {1, 7, 30};
     private static final String CURRENCY_SYMBOL = "PKR ";
+    private static final String[] HISTORY_COLUMNS = {"Ticket", "Plate", "Type", "Spot", "Floor", "Entry", "Exit",
+            "Duration", "Charges (" + CURRENCY_SYMBOL + ")"};
 
     public SmartParkingGUI() {
+        this(null);
+    }
+
+    /**
+     * @param layoutFile lot layout to load (see LotLayout), or null for the default grid
+     */
+    public SmartParkingGUI(Path layoutFile) {
         super();
         try {
-            this.manager = new SmartParkingLotSimulator(LOT_ROWS, LOT_COLS, FLOORS, new EnhancedBillingSystem());
+            LotLayout layout = layoutFile != null ? LotLayout.load(layoutFile) : LotLayout.grid(LOT_ROWS, LOT_COLS, FLOORS);
+            this.manager = new SmartParkingLotSimulator(layout, new EnhancedBillingSystem());
+            this.floors = layout.getFloorCount();
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "CRITICAL ERROR: Could not initialize parking manager", e);
             JOptionPane.showMessageDialog(null,
@@ -216,7 +882,7 @@ public class SmartParkingGUI extends JFrame {
             LOGGER.log(Level.WARNING, "System L&F not available. Using default.", e);
         }
 
-        setTitle("🚗 Smart Parking Management System - 3 Floors (PKR Billing)");
+        setTitle("🚗 Smart Parking Management System - " + floors + " Floors (PKR Billing)");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
         getContentPane().setBackground(new Color(245, 247, 250));
@@ -238,9 +904,10 @@ public class SmartParkingGUI extends JFrame {
         setLocationRelativeTo(null);
 
         startClockAndStatusTimer();
+        subscribeToSpotChanges();
         updateOverallDisplay();
 
-        logMessage("🚀 System Initialized. Parking Lot: " + FLOORS + " floors × " + LOT_ROWS + "×" + LOT_COLS + " spots. Billing in " + CURRENCY_SYMBOL, "INFO");
+        logMessage("🚀 System Initialized. Parking Lot: " + floors + " floors, " + manager.getTotalSpotCount() + " spots. Billing in " + CURRENCY_SYMBOL, "INFO");
         setVisible(true);
     }
 
@@ -255,7 +922,7 @@ public class SmartParkingGUI extends JFrame {
 
         // Initialize floor selector
         floorBox = new JComboBox<>();
-        for (int i = 1; i <= FLOORS; i++) {
+        for (int i = 1; i <= floors; i++) {
             floorBox.addItem("Floor " + i);
         }
         styleComboBox(floorBox);
@@ -282,20 +949,26 @@ public class SmartParkingGUI extends JFrame {
         floorLabel.setFont(new Font("Arial", Font.BOLD, 16));
         floorLabel.setForeground(new Color(52, 152, 219));
 
-        gridPanel = new JPanel(new GridLayout(LOT_ROWS, LOT_COLS, 10, 10));
-        gridPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
-        gridPanel.setBackground(Color.WHITE);
-
-        spotPanelsMap = new HashMap<>();
+        gridCards = new JPanel(new CardLayout());
+        gridCards.setBackground(Color.WHITE);
 
-        logArea = new JTextArea(15, 45);
-        logArea.setEditable(false);
-        logArea.setFont(new Font("Consolas", Font.PLAIN, 12));
-        logArea.setLineWrap(true);
-        logArea.setWrapStyleWord(true);
-        logArea.setBackground(new Color(25, 25, 35));
-        logArea.setForeground(new Color(200, 220, 240));
-        logArea.setCaretColor(Color.WHITE);
+        logModel = new OperatorLogModel(LOG_CAPACITY);
+        logList = new JList<>(logModel) {
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                int index = locationToIndex(e.getPoint());
+                return index >= 0 ? getModel().getElementAt(index) : null;
+            }
+        };
+        logList.setFont(new Font("Consolas", Font.PLAIN, 12));
+        logList.setFixedCellHeight(18); // fixed height lets JList lay out only the visible rows
+        logList.setBackground(new Color(25, 25, 35));
+        logList.setForeground(new Color(200, 220, 240));
+        logList.setSelectionBackground(new Color(60, 70, 90));
+        ToolTipManager.sharedInstance().registerComponent(logList);
+
+        logLevelFilter = new JComboBox<>(new String[]{"ALL", "INFO", "SUCCESS", "WARN", "ERROR", "ERROR-UI", "TICKET"});
+        logPlateFilter = new JTextField(8);
     }
 
     private JTextField createStyledTextField() {
@@ -333,7 +1006,7 @@ public class SmartParkingGUI extends JFrame {
         title.setFont(new Font("Arial", Font.BOLD, 28));
         title.setForeground(Color.WHITE);
 
-        JLabel subtitle = new JLabel("3-Floor Parking with Deadlock Prevention");
+        JLabel subtitle = new JLabel(floors + "-Floor Parking with Deadlock Prevention");
         subtitle.setFont(new Font("Arial", Font.ITALIC, 14));
         subtitle.setForeground(new Color(200, 220, 255));
 
@@ -416,33 +1089,29 @@ public class SmartParkingGUI extends JFrame {
         JPanel floorNav = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
         floorNav.setOpaque(false);
 
-        for (int i = 1; i <= FLOORS; i++) {
+        for (int i = 1; i <= floors; i++) {
             JButton floorBtn = createFloorButton(i);
             floorNav.add(floorBtn);
         }
 
         gridContainer.add(floorNav, BorderLayout.NORTH);
 
-        // Grid panel in scroll pane
-        JScrollPane gridScrollPane = new JScrollPane(gridPanel);
-        gridScrollPane.setBorder(BorderFactory.createTitledBorder(
+        // Per-floor grid views, each in its own scroll pane so it keeps its scroll position
+        gridCards.setBorder(BorderFactory.createTitledBorder(
                 BorderFactory.createLineBorder(new Color(200, 200, 220), 2),
                 "Parking Layout - Floor 1",
                 TitledBorder.CENTER, TitledBorder.TOP,
                 new Font("Arial", Font.BOLD, 16), new Color(30, 40, 60)
         ));
-        gridScrollPane.getViewport().setBackground(Color.WHITE);
-        gridScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        gridScrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
-        gridContainer.add(gridScrollPane, BorderLayout.CENTER);
+        gridContainer.add(gridCards, BorderLayout.CENTER);
         centerArea.add(gridContainer, BorderLayout.CENTER);
 
         // Log panel on right
         JPanel logPanel = new JPanel(new BorderLayout());
         logPanel.setPreferredSize(new Dimension(400, 0));
 
-        JScrollPane logScrollPane = new JScrollPane(logArea);
+        JScrollPane logScrollPane = new JScrollPane(logList);
         logScrollPane.setBorder(BorderFactory.createTitledBorder(
                 BorderFactory.createLineBorder(new Color(200, 200, 220), 2),
                 "Activity Log",
@@ -450,12 +1119,29 @@ public class SmartParkingGUI extends JFrame {
                 new Font("Arial", Font.BOLD, 14), new Color(30, 40, 60)
         ));
 
+        // Keep following new entries only while the operator is scrolled to the bottom
+        JScrollBar logScrollBar = logScrollPane.getVerticalScrollBar();
+        logModel.setAfterFlush(() -> {
+            boolean atBottom = logScrollBar.getValue() + logScrollBar.getVisibleAmount()
+                    >= logScrollBar.getMaximum() - logList.getFixedCellHeight();
+            if (atBottom && logModel.getSize() > 0) {
+                logList.ensureIndexIsVisible(logModel.getSize() - 1);
+            }
+        });
+
         // Log controls
         JPanel logControls = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         logControls.setOpaque(false);
+        Runnable applyLogFilter = () -> logModel.setFilter((String) logLevelFilter.getSelectedItem(), logPlateFilter.getText());
+        logLevelFilter.addActionListener(_ -> applyLogFilter.run());
+        logPlateFilter.addActionListener(_ -> applyLogFilter.run());
+        logControls.add(new JLabel("Level:"));
+        logControls.add(logLevelFilter);
+        logControls.add(new JLabel("Plate:"));
+        logControls.add(logPlateFilter);
         JButton clearLogBtn = new ModernButton("🗑️ Clear Log", new Color(100, 100, 120));
         clearLogBtn.setPreferredSize(new Dimension(120, 35));
-        clearLogBtn.addActionListener(_ -> logArea.setText(""));
+        clearLogBtn.addActionListener(_ -> logModel.clear());
         logControls.add(clearLogBtn);
 
         logPanel.add(logScrollPane, BorderLayout.CENTER);
@@ -568,55 +1254,88 @@ public class SmartParkingGUI extends JFrame {
 
         panel.add(reportsButton);
 
-        // Add quick stats
-        JLabel statsLabel = new JLabel();
-        statsLabel.setFont(new Font("Arial", Font.PLAIN, 11));
-        statsLabel.setForeground(new Color(100, 100, 100));
+        // Quick stats; refreshed by updateOverallDisplay when the lot changes
+        quickStatsLabel = new JLabel();
+        quickStatsLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+        quickStatsLabel.setForeground(new Color(100, 100, 100));
         panel.add(Box.createHorizontalStrut(20));
-        panel.add(statsLabel);
-
-        // Update stats in real-time
-        javax.swing.Timer statsTimer = new javax.swing.Timer(2000, _ -> {
-            int total = manager.getSpots().size();
-            int occupied = manager.getActiveTickets().size();
-            statsLabel.setText(String.format("Total: %d | Occupied: %d | Available: %d",
-                    total, occupied, total - occupied));
-        });
-        statsTimer.setRepeats(true);
-        statsTimer.start();
+        panel.add(quickStatsLabel);
 
         return panel;
     }
 
     private void initializeParkingGrid() {
-        if (gridPanel == null) {
-            logMessage("CRITICAL: gridPanel is null in initializeParkingGrid. UI cannot be built.", "ERROR");
+        if (gridCards == null) {
+            logMessage("CRITICAL: gridCards is null in initializeParkingGrid. UI cannot be built.", "ERROR");
             return;
         }
         showFloor(1);
+        prefetchFloorViews();
     }
 
-    private void showFloor(int floor) {
-        gridPanel.removeAll();
-        spotPanelsMap.clear();
+    /**
+     * Build the remaining floors' models in the background so later floor switches are a card swap
+     */
+    private void prefetchFloorViews() {
+        Set<Integer> built = new HashSet<>(floorViews.keySet());
+        new SwingWorker<Void, FloorGridModel>() {
+            @Override
+            protected Void doInBackground() {
+                for (int floor = 1; floor <= floors; floor++) {
+                    if (!built.contains(floor)) {
+                        publish(FloorGridModel.build(manager, floor));
+                    }
+                }
+                return null;
+            }
 
-        List<ParkingSpot> spots = manager.getSpotsByFloor(floor);
-        for (ParkingSpot spot : spots) {
-            ParkingSpotPanel panel = new ParkingSpotPanel(spot);
-            spotPanelsMap.put(spot.getSpotId(), panel);
-            gridPanel.add(panel);
-        }
+            @Override
+            protected void process(List<FloorGridModel> models) {
+                for (FloorGridModel model : models) {
+                    if (!floorViews.containsKey(model.floor)) {
+                        addFloorView(model);
+                    }
+                }
+            }
+        }.execute();
+    }
 
-        gridPanel.revalidate();
-        gridPanel.repaint();
-        floorLabel.setText("Floor " + floor);
+    private ParkingGridView addFloorView(FloorGridModel model) {
+        ParkingGridView view = new ParkingGridView(manager.getClock());
+        view.setModel(model);
+
+        JScrollPane scrollPane = new JScrollPane(view);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(Color.WHITE);
+        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
-        // Update the scroll pane title
-        Container parent = gridPanel.getParent().getParent();
-        if (parent instanceof JScrollPane scrollPane) {
-            ((TitledBorder) scrollPane.getBorder()).setTitle("Parking Layout - Floor " + floor);
-            scrollPane.repaint();
+        gridCards.add(scrollPane, floorCardName(model.floor));
+        floorViews.put(model.floor, view);
+        return view;
+    }
+
+    private static String floorCardName(int floor) {
+        return "floor-" + floor;
+    }
+
+    private void showFloor(int floor) {
+        if (floor == currentFloor) {
+            return; // view already bound to this floor; spot events keep it current
+        }
+        ParkingGridView view = floorViews.get(floor);
+        if (view == null) {
+            view = addFloorView(FloorGridModel.build(manager, floor)); // prefetch hasn't reached it yet
         }
+        currentFloor = floor;
+        gridView = view;
+        ((CardLayout) gridCards.getLayout()).show(gridCards, floorCardName(floor));
+        floorLabel.setText("Floor " + floor);
+
+        // Update the grid title
+        ((TitledBorder) gridCards.getBorder()).setTitle("Parking Layout - Floor " + floor);
+        gridCards.revalidate();
+        gridCards.repaint();
     }
 
     private void setupActionListeners() {
@@ -648,23 +1367,24 @@ public class SmartParkingGUI extends JFrame {
             return;
         }
 
-        try {
-            Vehicle vehicle = SmartParkingLotSimulator.createVehicle(type, plate, owner);
-
-            // Get preferred floor from selection
-            String floorSelection = (String) floorBox.getSelectedItem();
-            int preferredFloor = 1;
-            if (floorSelection != null && !floorSelection.isEmpty()) {
-                preferredFloor = Integer.parseInt(floorSelection.replace("Floor ", ""));
-            }
-
-            Ticket ticket = manager.parkVehicleWithFloorPreference(vehicle, preferredFloor);
+        // Get preferred floor from selection
+        String floorSelection = (String) floorBox.getSelectedItem();
+        int preferredFloor = 1;
+        if (floorSelection != null && !floorSelection.isEmpty()) {
+            preferredFloor = Integer.parseInt(floorSelection.replace("Floor ", ""));
+        }
+        int floor = preferredFloor;
 
+        Vehicle vehicle = SmartParkingLotSimulator.createVehicle(type, plate, owner, LocalDateTime.now(manager.getClock()));
+        logMessage("⏳ Parking " + plate + "…", "INFO");
+        parkButton.setEnabled(false);
+        dispatcher.submit(() -> manager.parkVehicleWithFloorPreference(vehicle, floor), ticket -> {
+            parkButton.setEnabled(true);
             this.lastParkedTicketId = ticket.getTicketId();
 
             // Use emoji based on success
             String emoji = "✅";
-            if (ticket.getSpot().getFloor() != preferredFloor) {
+            if (ticket.getSpot().getFloor() != floor) {
                 emoji = "🔄"; // Changed floor
                 logMessage(emoji + " PARKED: " + plate + " (" + type.name() + ") in " +
                         ticket.getSpot().getSpotId() + " (Floor " + ticket.getSpot().getFloor() +
@@ -680,17 +1400,17 @@ public class SmartParkingGUI extends JFrame {
             // Show which floor it's on
             showFloor(ticket.getSpot().getFloor());
             highlightSpotOnGrid(ticket.getSpot().getSpotId(), true);
-
-        } catch (ParkingLotFullException | VehicleAlreadyParkedException ex) {
-            showErrorDialog(ex.getMessage(), plateField);
-            logMessage("❌ Park FAILED: " + plate + ". Reason: " + ex.getMessage(), "WARN");
-        } catch (Exception ex) {
-            showErrorDialog("Unexpected error during parking: " + ex.getMessage(), null);
-            logMessage("❌ Park FAILED (Unexpected): " + plate + ". " + ex.getMessage(), "ERROR");
-            LOGGER.log(Level.SEVERE, "Parking failed", ex);
-        }
-
-        updateOverallDisplay();
+        }, ex -> {
+            parkButton.setEnabled(true);
+            if (ex instanceof ParkingLotFullException || ex instanceof VehicleAlreadyParkedException) {
+                showErrorDialog(ex.getMessage(), plateField);
+                logMessage("❌ Park FAILED: " + plate + ". Reason: " + ex.getMessage(), "WARN");
+            } else {
+                showErrorDialog("Unexpected error during parking: " + ex.getMessage(), null);
+                logMessage("❌ Park FAILED (Unexpected): " + plate + ". " + ex.getMessage(), "ERROR");
+                LOGGER.log(Level.SEVERE, "Parking failed", ex);
+            }
+        });
     }
 
     private void actionReleaseVehicle(ActionEvent e) {
@@ -700,10 +1420,12 @@ public class SmartParkingGUI extends JFrame {
             return;
         }
 
-        try {
-            Ticket ticketToConfirm = manager.getActiveTickets().get(ticketId);
-            if (ticketToConfirm == null) throw new InvalidTicketException(ticketId);
-
+        releaseButton.setEnabled(false);
+        dispatcher.submit(() -> {
+            Ticket ticket = manager.findTicketById(ticketId);
+            if (ticket.getExitTime() != null) throw new InvalidTicketException(ticketId);
+            return ticket;
+        }, ticketToConfirm -> {
             // Enhanced confirmation dialog
             int confirm = JOptionPane.showConfirmDialog(this,
                     String.format("<html><b>Confirm Vehicle Release</b><br><br>" +
@@ -721,40 +1443,53 @@ public class SmartParkingGUI extends JFrame {
                     "Confirm Release", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
 
             if (confirm != JOptionPane.YES_OPTION) {
+                releaseButton.setEnabled(true);
                 logMessage("⚠️ Release cancelled by user for Ticket: " + ticketId, "INFO");
                 return;
             }
 
-            double charges = manager.releaseVehicle(ticketId);
-            Ticket releasedTicket = manager.getTicketHistory().stream()
-                    .filter(t -> t.getTicketId().equals(ticketId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (releasedTicket != null) {
+            logMessage("⏳ Releasing " + ticketId + "…", "INFO");
+            dispatcher.submit(() -> {
+                double charges = manager.releaseVehicle(ticketId);
+                return new ReleaseReport(closedTicket(ticketId, ticketToConfirm), charges);
+            }, report -> {
+                releaseButton.setEnabled(true);
                 logMessage(String.format("✅ RELEASED: %s from %s. Charges: %s%.0f",
-                        releasedTicket.getVehicle().getLicensePlate(),
-                        releasedTicket.getSpot().getSpotId(),
-                        CURRENCY_SYMBOL, charges), "SUCCESS");
+                        ticketToConfirm.getVehicle().getLicensePlate(),
+                        ticketToConfirm.getSpot().getSpotId(),
+                        CURRENCY_SYMBOL, report.charges()), "SUCCESS");
 
-                showBillingSummaryDialog(releasedTicket, charges);
+                showBillingSummaryDialog(report.ticket(), report.charges());
                 ticketField.setText("");
 
                 // Show the floor where spot was released
-                showFloor(releasedTicket.getSpot().getFloor());
-            } else {
-                logMessage("❌ CRITICAL ERROR: Released ticket " + ticketId + " not found in history.", "ERROR");
-            }
-        } catch (InvalidTicketException ex) {
+                showFloor(ticketToConfirm.getSpot().getFloor());
+            }, ex -> releaseFailed(ticketId, ex));
+        }, ex -> releaseFailed(ticketId, ex));
+    }
+
+    /**
+     * The closed ticket the lot kept for ticketId, or the ticket as it was
+     * before release when the lot does not retain closed tickets
+     */
+    private Ticket closedTicket(String ticketId, Ticket beforeRelease) {
+        try {
+            return manager.findTicketById(ticketId);
+        } catch (InvalidTicketException e) {
+            return beforeRelease;
+        }
+    }
+
+    private void releaseFailed(String ticketId, Throwable ex) {
+        releaseButton.setEnabled(true);
+        if (ex instanceof InvalidTicketException) {
             showErrorDialog(ex.getMessage(), ticketField);
             logMessage("⚠️ Release FAILED: " + ticketId + ". Reason: " + ex.getMessage(), "WARN");
-        } catch (Exception ex) {
+        } else {
             showErrorDialog("Unexpected error during release: " + ex.getMessage(), ticketField);
             logMessage("❌ Release FAILED (Unexpected): " + ticketId + ". " + ex.getMessage(), "ERROR");
             LOGGER.log(Level.SEVERE, "Release failed", ex);
         }
-
-        updateOverallDisplay();
     }
 
     private void actionFindVehicle(ActionEvent e) {
@@ -764,8 +1499,9 @@ public class SmartParkingGUI extends JFrame {
             return;
         }
 
-        try {
-            Ticket ticket = manager.findTicketByLicense(plate);
+        findButton.setEnabled(false);
+        dispatcher.submit(() -> manager.findTicketByLicense(plate), ticket -> {
+            findButton.setEnabled(true);
             Vehicle v = ticket.getVehicle();
 
             String info = String.format("<html><div style='font-family: Arial; padding: 10px;'>" +
@@ -784,23 +1520,26 @@ public class SmartParkingGUI extends JFrame {
                     v.getOwnerId(),
                     ticket.getSpot().getSpotId(), ticket.getSpot().getFloor(),
                     ticket.getTicketId(),
-                    v.getEntryTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                    formatDuration(Duration.between(v.getEntryTime(), LocalDateTime.now()).toMinutes()));
+                    ticket.getEntryTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                    formatDuration(ticket.getDuration(LocalDateTime.now(manager.getClock()))));
 
             JOptionPane.showMessageDialog(this, info, "Vehicle Information", JOptionPane.INFORMATION_MESSAGE);
             logMessage("🔍 Found vehicle: " + plate + " in spot " + ticket.getSpot().getSpotId() + " (Floor " + ticket.getSpot().getFloor() + ")", "INFO");
 
-            highlightSpotOnGrid(ticket.getSpot().getSpotId(), true);
             showFloor(ticket.getSpot().getFloor());
+            highlightSpotOnGrid(ticket.getSpot().getSpotId(), true);
             searchField.setText("");
-        } catch (VehicleNotFoundException ex) {
-            showErrorDialog(ex.getMessage(), searchField);
-            logMessage("⚠️ Search: " + ex.getMessage(), "WARN");
-        } catch (Exception ex) {
-            showErrorDialog("Unexpected error during search: " + ex.getMessage(), searchField);
-            logMessage("❌ Search FAILED (Unexpected): " + plate + ". " + ex.getMessage(), "ERROR");
-            LOGGER.log(Level.SEVERE, "Search failed", ex);
-        }
+        }, ex -> {
+            findButton.setEnabled(true);
+            if (ex instanceof VehicleNotFoundException) {
+                showErrorDialog(ex.getMessage(), searchField);
+                logMessage("⚠️ Search: " + ex.getMessage(), "WARN");
+            } else {
+                showErrorDialog("Unexpected error during search: " + ex.getMessage(), searchField);
+                logMessage("❌ Search FAILED (Unexpected): " + plate + ". " + ex.getMessage(), "ERROR");
+                LOGGER.log(Level.SEVERE, "Search failed", ex);
+            }
+        });
     }
 
     private void actionViewReports(ActionEvent e) {
@@ -839,14 +1578,15 @@ public class SmartParkingGUI extends JFrame {
         plateField.setText(plate);
         ownerField.setText(owner);
         typeBox.setSelectedItem(type);
-        floorBox.setSelectedIndex(rand.nextInt(FLOORS));
+        floorBox.setSelectedIndex(rand.nextInt(floors));
 
         // Trigger park action
         actionParkVehicle(e);
     }
 
     private void actionBulkRelease(ActionEvent e) {
-        int count = manager.getActiveTickets().size();
+        // Live counter read; never blocks
+        int count = manager.getOccupiedSpotCount();
         if (count == 0) {
             JOptionPane.showMessageDialog(this, "No vehicles to release.", "Bulk Release", JOptionPane.INFORMATION_MESSAGE);
             return;
@@ -858,49 +1598,149 @@ public class SmartParkingGUI extends JFrame {
                 "Confirm Bulk Release", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            double totalRevenue = 0;
-            List<String> ticketIds = new ArrayList<>(manager.getActiveTickets().keySet());
+            bulkReleaseButton.setEnabled(false);
+            ProgressMonitor monitor = new ProgressMonitor(this, "Releasing all parked vehicles…", "", 0, 100);
+            monitor.setMillisToDecideToPopup(0);
+            monitor.setMillisToPopup(200);
+
+            BulkReleaseWorker worker = new BulkReleaseWorker(monitor);
+            worker.addPropertyChangeListener(event -> {
+                if ("progress".equals(event.getPropertyName())) {
+                    monitor.setProgress((Integer) event.getNewValue());
+                    if (monitor.isCanceled()) worker.requestStop();
+                }
+            });
+            worker.execute();
+        }
+    }
+
+    /**
+     * Releases every active ticket off the EDT. Cancelling stops after the
+     * release in flight; a contended spot only delays its own entry.
+     */
+    private class BulkReleaseWorker extends SwingWorker<Void, String> {
+        private final ProgressMonitor monitor;
+        private int released;
+        private int failed;
+        private double totalRevenue;
+        private volatile boolean stopRequested;
+
+        BulkReleaseWorker(ProgressMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        /**
+         * Unlike cancel(), lets the release in flight finish so done() reports accurate totals
+         */
+        void requestStop() {
+            stopRequested = true;
+        }
 
-            for (String ticketId : ticketIds) {
+        @Override
+        protected Void doInBackground() {
+            List<String> ticketIds = manager.getActiveTicketIds();
+            for (int i = 0; i < ticketIds.size() && !stopRequested; i++) {
+                String ticketId = ticketIds.get(i);
+                publish(ticketId);
                 try {
                     double charges = manager.releaseVehicle(ticketId);
                     totalRevenue += charges;
+                    released++;
                     logMessage("Released: " + ticketId + " - " + CURRENCY_SYMBOL + charges, "INFO");
                 } catch (Exception ex) {
+                    failed++;
                     logMessage("Failed to release: " + ticketId + " - " + ex.getMessage(), "ERROR");
                 }
+                setProgress((i + 1) * 100 / ticketIds.size());
             }
+            return null;
+        }
 
-            JOptionPane.showMessageDialog(this,
-                    String.format("<html><b>Bulk Release Complete</b><br><br>" +
+        @Override
+        protected void process(List<String> ticketIds) {
+            monitor.setNote("Releasing " + ticketIds.getLast());
+        }
+
+        @Override
+        protected void done() {
+            monitor.close();
+            bulkReleaseButton.setEnabled(true);
+            // released/failed/totalRevenue were written before doInBackground returned, which happens-before done()
+            JOptionPane.showMessageDialog(SmartParkingGUI.this,
+                    String.format("<html><b>Bulk Release %s</b><br><br>" +
                                     "Released: %d vehicles<br>" +
+                                    "Failed: %d<br>" +
                                     "Total Revenue: <font color='green'><b>%s%.0f</b></font></html>",
-                            count, CURRENCY_SYMBOL, totalRevenue),
+                            stopRequested ? "Cancelled" : "Complete",
+                            released, failed, CURRENCY_SYMBOL, totalRevenue),
                     "Bulk Release Summary", JOptionPane.INFORMATION_MESSAGE);
-
-            updateOverallDisplay();
         }
     }
 
+    /**
+     * Refresh the header and status bar from the simulator's live counters.
+     * Driven by the spot-change frame, so it runs at most once per frame and only after a change.
+     */
     private void updateOverallDisplay() {
-        int total = manager.getSpots().size();
-        int occupied = manager.getActiveTickets().size();
+        displayedVersion = manager.getStateVersion();
+        int total = manager.getTotalSpotCount();
+        int occupied = manager.getOccupiedSpotCount();
 
         statusLabel.setText(String.format("Spots: %d Available | %d Occupied | %d Total",
                 total - occupied, occupied, total));
+        quickStatsLabel.setText(String.format("Total: %d | Occupied: %d | Available: %d",
+                total, occupied, total - occupied));
 
         revenueLabel.setText(String.format("Revenue: %s%.0f",
                 CURRENCY_SYMBOL, manager.getTotalRevenueFromHistory()));
 
-        // Update all spot panels
-        for (ParkingSpotPanel panel : spotPanelsMap.values()) {
-            panel.updateDisplay();
-        }
-
         // Update floor occupancy display
         updateFloorOccupancy();
     }
 
+    private void subscribeToSpotChanges() {
+        frameTimer = new javax.swing.Timer(FRAME_MS, _ -> repaintChangedSpots());
+        frameTimer.setRepeats(false);
+        spotEvents = manager.getEventBus().subscribe(() -> SwingUtilities.invokeLater(this::scheduleFrame));
+        spotEvents.arm();
+    }
+
+    private void scheduleFrame() {
+        if (!frameTimer.isRunning()) {
+            frameTimer.start();
+        }
+    }
+
+    /**
+     * Apply every spot change published since the last frame, repainting only the cells that changed
+     */
+    private void repaintChangedSpots() {
+        spotEvents.poll(event -> {
+            if (event.getSpotId() != null) {
+                dirtySpots.add(event.getSpotId());
+            }
+        }, Integer.MAX_VALUE);
+
+        if (spotEvents.getDroppedCount() != droppedEventsSeen) {
+            // Fell a whole ring behind; we no longer know which spots changed
+            droppedEventsSeen = spotEvents.getDroppedCount();
+            gridView.repaint();
+        } else {
+            for (String spotId : dirtySpots) {
+                gridView.repaintSpot(spotId);
+            }
+        }
+        dirtySpots.clear();
+
+        if (manager.getStateVersion() != displayedVersion) {
+            updateOverallDisplay();
+        }
+
+        if (!spotEvents.arm()) {
+            frameTimer.restart();
+        }
+    }
+
     private void updateFloorOccupancy() {
         // This method would update floor-specific statistics
         // Could be enhanced to show occupancy per floor
@@ -922,45 +1762,34 @@ public class SmartParkingGUI extends JFrame {
     }
 
     private void highlightSpotOnGrid(String spotId, boolean highlight) {
-        ParkingSpotPanel panel = spotPanelsMap.get(spotId);
-        if (panel != null) {
-            if (highlight) {
-                panel.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(Color.ORANGE, 3),
-                        BorderFactory.createEmptyBorder(2, 2, 2, 2)
-                ));
+        if (highlight) {
+            gridView.setHighlightedSpot(spotId);
 
-                if (highlightEffectTimer != null)
-                    highlightEffectTimer.cancel();
+            if (highlightEffectTimer != null)
+                highlightEffectTimer.cancel();
 
-                highlightEffectTimer = new java.util.Timer();
-                highlightEffectTimer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        SwingUtilities.invokeLater(() -> highlightSpotOnGrid(spotId, false));
-                    }
-                }, 3000);
-            } else {
-                panel.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(Color.GRAY, 1),
-                        BorderFactory.createEmptyBorder(5, 5, 5, 5)
-                ));
+            highlightEffectTimer = new java.util.Timer();
+            highlightEffectTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    SwingUtilities.invokeLater(() -> highlightSpotOnGrid(spotId, false));
+                }
+            }, 3000);
+        } else {
+            for (ParkingGridView view : floorViews.values()) {
+                if (view.isHighlighted(spotId)) {
+                    view.setHighlightedSpot(null);
+                }
             }
         }
     }
 
     private void logMessage(String message, String type) {
-        String timestamp = LocalDateTime.now().format(LOG_TIMESTAMP_FORMAT);
-
-        // Simple text logging (HTML not supported in JTextArea)
-        logArea.append(String.format("[%s] %s: %s\n", timestamp, type, message));
-        logArea.setCaretPosition(logArea.getDocument().getLength());
+        logModel.log(type, message);
     }
 
     private void logTicketId(String ticketId) {
-        String timestamp = LocalDateTime.now().format(LOG_TIMESTAMP_FORMAT);
-        logArea.append(String.format("[%s] 🎫 TICKET ISSUED: %s\n", timestamp, ticketId));
-        logArea.setCaretPosition(logArea.getDocument().getLength());
+        logModel.log("TICKET", "🎫 TICKET ISSUED: " + ticketId);
     }
 
     private void showErrorDialog(String message, Component fieldToFocus) {
@@ -982,7 +1811,7 @@ public class SmartParkingGUI extends JFrame {
         }
     }
 
-    private String formatDuration(long totalMinutes) {
+    static String formatDuration(long totalMinutes) {
         if (totalMinutes < 0) return "0m";
         long d = TimeUnit.MINUTES.toDays(totalMinutes);
         long h = TimeUnit.MINUTES.toHours(totalMinutes) % 24;
@@ -994,6 +1823,7 @@ public class SmartParkingGUI extends JFrame {
 
     private void showBillingSummaryDialog(Ticket ticket, double charges) {
         Vehicle v = ticket.getVehicle();
+        LocalDateTime exitTime = ticket.getExitTime();
         String summary = String.format(
                 "<html><body style='font-family: Arial; padding: 15px;'>" +
                         "<div style='text-align: center;'>" +
@@ -1017,8 +1847,8 @@ public class SmartParkingGUI extends JFrame {
                 v.getOwnerId(),
                 ticket.getSpot().getSpotId(), ticket.getSpot().getFloor(),
                 ticket.getEntryTime().format(DateTimeFormatter.ofPattern("MM-dd HH:mm")),
-                ticket.getExitTime().format(DateTimeFormatter.ofPattern("MM-dd HH:mm")),
-                formatDuration(ticket.getDuration()),
+                exitTime == null ? "—" : exitTime.format(DateTimeFormatter.ofPattern("MM-dd HH:mm")),
+                exitTime == null ? "—" : formatDuration(ticket.getDuration(exitTime)),
                 CURRENCY_SYMBOL, charges
         );
 
@@ -1049,14 +1879,24 @@ public class SmartParkingGUI extends JFrame {
 
         reportsDialog.add(header, BorderLayout.NORTH);
 
-        // Tabbed content
+        // Tabbed content; each tab is built the first time it is selected
         JTabbedPane tabbedPane = new JTabbedPane(JTabbedPane.TOP, JTabbedPane.SCROLL_TAB_LAYOUT);
         tabbedPane.setFont(new Font("Arial", Font.BOLD, 13));
 
-        tabbedPane.addTab("🏢 Current Status", createReportPanel_CurrentStatus());
-        tabbedPane.addTab("💰 Revenue Details", createReportPanel_Revenue());
-        tabbedPane.addTab("📜 Parking History", createReportPanel_History());
-        tabbedPane.addTab("📈 Floor Analysis", createReportPanel_FloorAnalysis());
+        List<Runnable> tabLoaders = new ArrayList<>();
+        addLazyReportTab(tabbedPane, tabLoaders, "🏢 Current Status",
+                this::computeStatusReport, this::createReportPanel_CurrentStatus);
+        addLazyReportTab(tabbedPane, tabLoaders, "💰 Revenue Details",
+                this::computeRevenueReport, this::createReportPanel_Revenue);
+        addLazyReportTab(tabbedPane, tabLoaders, "📜 Parking History",
+                () -> new HistoryTableModel(manager, HISTORY_COLUMNS), this::createReportPanel_History);
+        addLazyReportTab(tabbedPane, tabLoaders, "📈 Floor Analysis",
+                this::computeFloorReport, this::createReportPanel_FloorAnalysis);
+        addLazyReportTab(tabbedPane, tabLoaders, "⭐ Frequent Visitors",
+                () -> computeVisitorReport(VISITOR_WINDOWS_DAYS[1]), this::createReportPanel_FrequentVisitors);
+
+        tabbedPane.addChangeListener(_ -> loadReportTab(tabLoaders, tabbedPane.getSelectedIndex()));
+        loadReportTab(tabLoaders, 0);
 
         reportsDialog.add(tabbedPane, BorderLayout.CENTER);
 
@@ -1080,13 +1920,140 @@ public class SmartParkingGUI extends JFrame {
         reportsDialog.setVisible(true);
     }
 
-    private JComponent createReportPanel_CurrentStatus() {
+    private record ReleaseReport(Ticket ticket, double charges) {
+    }
+
+    private record StatusReport(int totalSpots, int occupied, Map<VehicleType, Long> typeCounts) {
+    }
+
+    private record RevenueReport(double totalRevenue, Map<VehicleType, Double> revenuePerType,
+                                 Map<String, PercentileSummary> stayPercentiles,
+                                 Map<String, PercentileSummary> chargePercentiles) {
+    }
+
+    private record VisitorReport(List<VisitorCount> plates, List<VisitorCount> owners, long uniqueVehicles) {
+    }
+
+    private record FloorReport(Map<Integer, Integer> floorCapacity, Map<Integer, Integer> floorOccupied,
+                               Map<Integer, Double> floorRevenue, OccupancyWindow[] floorHistory,
+                               FloorForecast[] forecasts) {
+    }
+
+    /**
+     * Add a placeholder tab whose data is computed off the EDT on first selection
+     */
+    private <T> void addLazyReportTab(JTabbedPane tabbedPane, List<Runnable> tabLoaders, String title,
+                                      Supplier<T> compute, Function<T, JComponent> build) {
+        JPanel holder = new JPanel(new BorderLayout());
+        JLabel loading = new JLabel("Loading…", SwingConstants.CENTER);
+        loading.setFont(new Font("Arial", Font.ITALIC, 14));
+        holder.add(loading, BorderLayout.CENTER);
+        tabbedPane.addTab(title, holder);
+
+        tabLoaders.add(() -> new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return compute.get();
+            }
+
+            @Override
+            protected void done() {
+                holder.removeAll();
+                try {
+                    holder.add(build.apply(get()), BorderLayout.CENTER);
+                } catch (Exception e) {
+                    logMessage("Failed to build report '" + title + "': " + e.getMessage(), "ERROR-UI");
+                    holder.add(new JLabel("Report unavailable: " + e.getMessage(), SwingConstants.CENTER),
+                            BorderLayout.CENTER);
+                }
+                holder.revalidate();
+                holder.repaint();
+            }
+        }.execute());
+    }
+
+    private static void loadReportTab(List<Runnable> tabLoaders, int index) {
+        if (index < 0 || index >= tabLoaders.size()) return;
+        Runnable loader = tabLoaders.set(index, null);
+        if (loader != null) loader.run();
+    }
+
+    private StatusReport computeStatusReport() {
+        Map<VehicleType, Long> typeCounts = manager.getOccupancyByType();
+        int occupied = 0;
+        for (long count : typeCounts.values()) {
+            occupied += (int) count;
+        }
+        return new StatusReport(manager.getTotalSpotCount(), occupied, typeCounts);
+    }
+
+    private RevenueReport computeRevenueReport() {
+        Map<VehicleType, Double> revenuePerType = new EnumMap<>(VehicleType.class);
+        double[] total = new double[1];
+        manager.getTicketHistory().forEach(t -> {
+            revenuePerType.merge(t.getVehicle().getVehicleType(), t.getChargesPaid(), Double::sum);
+            total[0] += t.getChargesPaid();
+        });
+
+        // Percentiles come from the release-time sketches, not from sorting history
+        StayPercentiles percentiles = manager.getStayPercentiles();
+        Map<String, PercentileSummary> stays = new LinkedHashMap<>();
+        Map<String, PercentileSummary> charges = new LinkedHashMap<>();
+        stays.put("All vehicles", percentiles.getDurationSummary(StatSeries.TOTAL));
+        charges.put("All vehicles", percentiles.getChargeSummary(StatSeries.TOTAL));
+        for (VehicleType vt : VehicleType.values()) {
+            stays.put(vt.getIcon() + " " + vt.name(), percentiles.getDurationSummary(percentiles.getSeries().type(vt)));
+            charges.put(vt.getIcon() + " " + vt.name(), percentiles.getChargeSummary(percentiles.getSeries().type(vt)));
+        }
+        for (int floor = 1; floor <= floors; floor++) {
+            stays.put("Floor " + floor, percentiles.getDurationSummary(percentiles.getSeries().floor(floor)));
+            charges.put("Floor " + floor, percentiles.getChargeSummary(percentiles.getSeries().floor(floor)));
+        }
+        return new RevenueReport(total[0], revenuePerType, stays, charges);
+    }
+
+    private FloorReport computeFloorReport() {
+        Map<Integer, Integer> floorCapacity = new HashMap<>();
+        Map<Integer, Integer> floorOccupied = manager.getFloorOccupancy();
+        Map<Integer, Double> floorRevenue = new HashMap<>();
+
+        for (int floor = 1; floor <= floors; floor++) {
+            floorCapacity.put(floor, manager.getLayout().floorSize(floor));
+        }
+
+        manager.getTicketHistory().forEach(ticket ->
+                floorRevenue.merge(ticket.getSpot().getFloor(), ticket.getChargesPaid(), Double::sum));
+        FloorForecast[] forecasts = new FloorForecast[floors];
+        LocalDateTime now = LocalDateTime.now(manager.getClock());
+        for (int floor = 1; floor <= floors; floor++) {
+            forecasts[floor - 1] = manager.getForecaster().forecast(floor, now);
+        }
+        return new FloorReport(floorCapacity, floorOccupied, floorRevenue,
+                readFloorHistory(OccupancyTimeSeries.Resolution.SECOND), forecasts);
+    }
+
+    /**
+     * Each floor's occupancy over the full retention of one resolution; reads the rings, not ticket history
+     */
+    private OccupancyWindow[] readFloorHistory(OccupancyTimeSeries.Resolution resolution) {
+        OccupancyTimeSeries history = manager.getOccupancyHistory();
+        long now = history.advanceTo(LocalDateTime.now(manager.getClock()));
+        long from = now - (long) resolution.getStepSeconds() * resolution.getCapacity();
+
+        OccupancyWindow[] windows = new OccupancyWindow[floors];
+        for (int floor = 1; floor <= floors; floor++) {
+            windows[floor - 1] = history.read(history.getSeries().floor(floor), resolution, from, now);
+        }
+        return windows;
+    }
+
+    private JComponent createReportPanel_CurrentStatus(StatusReport report) {
         JPanel content = new JPanel(new BorderLayout(10, 10));
         content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 
         // Overall stats
-        int totalSpots = manager.getSpots().size();
-        int occupied = manager.getActiveTickets().size();
+        int totalSpots = report.totalSpots();
+        int occupied = report.occupied();
         double occupancyRate = totalSpots > 0 ? (occupied * 100.0 / totalSpots) : 0.0;
 
         JPanel statsPanel = new JPanel(new GridLayout(2, 2, 15, 15));
@@ -1109,9 +2076,7 @@ public class SmartParkingGUI extends JFrame {
             }
         };
 
-        Map<VehicleType, Long> typeCounts = new EnumMap<>(VehicleType.class);
-        manager.getActiveTickets().values().forEach(t ->
-                typeCounts.merge(t.getVehicle().getVehicleType(), 1L, Long::sum));
+        Map<VehicleType, Long> typeCounts = report.typeCounts();
 
         for (VehicleType vt : VehicleType.values()) {
             long count = typeCounts.getOrDefault(vt, 0L);
@@ -1130,11 +2095,11 @@ public class SmartParkingGUI extends JFrame {
         return content;
     }
 
-    private JComponent createReportPanel_Revenue() {
+    private JComponent createReportPanel_Revenue(RevenueReport report) {
         JPanel content = new JPanel(new BorderLayout(10, 10));
         content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 
-        double totalRevenue = manager.getTotalRevenueFromHistory();
+        double totalRevenue = report.totalRevenue();
 
         // Revenue summary
         JPanel summaryPanel = new JPanel(new BorderLayout());
@@ -1157,9 +2122,7 @@ public class SmartParkingGUI extends JFrame {
             @Override public boolean isCellEditable(int r, int c) { return false; }
         };
 
-        Map<VehicleType, Double> revenuePerType = new EnumMap<>(VehicleType.class);
-        manager.getTicketHistory().forEach(t ->
-                revenuePerType.merge(t.getVehicle().getVehicleType(), t.getChargesPaid(), Double::sum));
+        Map<VehicleType, Double> revenuePerType = report.revenuePerType();
 
         for (VehicleType vt : VehicleType.values()) {
             double revenue = revenuePerType.getOrDefault(vt, 0.0);
@@ -1178,38 +2141,126 @@ public class SmartParkingGUI extends JFrame {
         TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(model);
         table.setRowSorter(sorter);
 
-        content.add(new JScrollPane(table), BorderLayout.CENTER);
+        // Stay and charge distribution
+        String[] percentileCols = {"Series", "Stays", "Median Stay", "p90 Stay", "p99 Stay",
+                "Median Charge", "p90 Charge", "p99 Charge"};
+        DefaultTableModel percentileModel = new DefaultTableModel(percentileCols, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+        };
+        for (Map.Entry<String, PercentileSummary> e : report.stayPercentiles().entrySet()) {
+            PercentileSummary stay = e.getValue();
+            PercentileSummary charge = report.chargePercentiles().get(e.getKey());
+            percentileModel.addRow(new Object[]{
+                    e.getKey(), stay.count(),
+                    formatPercentileMinutes(stay.p50()), formatPercentileMinutes(stay.p90()),
+                    formatPercentileMinutes(stay.p99()),
+                    formatPercentileCharge(charge.p50()), formatPercentileCharge(charge.p90()),
+                    formatPercentileCharge(charge.p99())
+            });
+        }
+        JTable percentileTable = new JTable(percentileModel);
+        styleTable(percentileTable);
+        JScrollPane percentileScroll = new JScrollPane(percentileTable);
+        percentileScroll.setBorder(BorderFactory.createTitledBorder("Stay & Charge Percentiles (±1%)"));
+
+        JPanel tables = new JPanel(new GridLayout(2, 1, 0, 10));
+        tables.add(new JScrollPane(table));
+        tables.add(percentileScroll);
+        content.add(tables, BorderLayout.CENTER);
         return content;
     }
 
-    private JComponent createReportPanel_History() {
+    private static String formatPercentileMinutes(double minutes) {
+        return Double.isNaN(minutes) ? "-" : formatDuration(Math.round(minutes));
+    }
+
+    private static String formatPercentileCharge(double charge) {
+        return Double.isNaN(charge) ? "-" : String.format("%s%.0f", CURRENCY_SYMBOL, charge);
+    }
+
+    private VisitorReport computeVisitorReport(int windowDays) {
+        FrequentVisitors visitors = manager.getFrequentVisitors();
+        LocalDate today = LocalDate.now(manager.getClock());
+        return new VisitorReport(visitors.topPlates(today, windowDays, TOP_VISITORS),
+                visitors.topOwners(today, windowDays, TOP_VISITORS),
+                manager.getUniqueVehicles().estimate(StatSeries.TOTAL,
+                        today.minusDays(windowDays - 1), today));
+    }
+
+    private JComponent createReportPanel_FrequentVisitors(VisitorReport initial) {
         JPanel content = new JPanel(new BorderLayout(10, 10));
         content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("MM-dd HH:mm");
-        String[] cols = {"Ticket", "Plate", "Type", "Spot", "Floor", "Entry", "Exit", "Duration", "Charges ("+ CURRENCY_SYMBOL +")"};
-        DefaultTableModel model = new DefaultTableModel(cols, 0) {
+        DefaultTableModel plateModel = visitorTableModel("License Plate");
+        DefaultTableModel ownerModel = visitorTableModel("Owner");
+        fillVisitorTable(plateModel, initial.plates());
+        fillVisitorTable(ownerModel, initial.owners());
+        JLabel uniqueLabel = new JLabel(uniqueVehiclesText(initial.uniqueVehicles()));
+        uniqueLabel.setFont(new Font("Arial", Font.BOLD, 13));
+
+        JComboBox<String> window = new JComboBox<>(new String[]{"Today", "Last 7 days", "Last 30 days"});
+        window.setSelectedIndex(1);
+        window.addActionListener(_ -> {
+            int days = VISITOR_WINDOWS_DAYS[window.getSelectedIndex()];
+            new SwingWorker<VisitorReport, Void>() {
+                @Override
+                protected VisitorReport doInBackground() {
+                    return computeVisitorReport(days);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        VisitorReport report = get();
+                        fillVisitorTable(plateModel, report.plates());
+                        fillVisitorTable(ownerModel, report.owners());
+                        uniqueLabel.setText(uniqueVehiclesText(report.uniqueVehicles()));
+                    } catch (Exception e) {
+                        logMessage("Failed to load frequent visitors: " + e.getMessage(), "ERROR-UI");
+                    }
+                }
+            }.execute();
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Completed visits over:"));
+        controls.add(window);
+        controls.add(uniqueLabel);
+        controls.add(new JLabel("  (sketch estimates; counts may run slightly high)"));
+        content.add(controls, BorderLayout.NORTH);
+
+        JPanel tables = new JPanel(new GridLayout(1, 2, 15, 0));
+        for (DefaultTableModel model : List.of(plateModel, ownerModel)) {
+            JTable table = new JTable(model);
+            styleTable(table);
+            tables.add(new JScrollPane(table));
+        }
+        content.add(tables, BorderLayout.CENTER);
+        return content;
+    }
+
+    private static String uniqueVehiclesText(long uniqueVehicles) {
+        return "   Distinct vehicles: ~" + uniqueVehicles;
+    }
+
+    private static DefaultTableModel visitorTableModel(String keyColumn) {
+        return new DefaultTableModel(new String[]{"#", keyColumn, "Visits"}, 0) {
             @Override public boolean isCellEditable(int r, int c) { return false; }
         };
+    }
 
-        List<Ticket> historyCopy = new ArrayList<>(manager.getTicketHistory());
-        Collections.reverse(historyCopy);
-
-        for (Ticket t : historyCopy) {
-            Vehicle v = t.getVehicle();
-            model.addRow(new Object[]{
-                    t.getTicketId(),
-                    v.getLicensePlate(),
-                    v.getVehicleType().getIcon(),
-                    t.getSpot().getSpotId(),
-                    t.getSpot().getFloor(),
-                    t.getEntryTime().format(dtf),
-                    t.getExitTime() != null ? t.getExitTime().format(dtf) : "N/A",
-                    formatDuration(t.getDuration()),
-                    String.format("%.0f", t.getChargesPaid())
-            });
+    private static void fillVisitorTable(DefaultTableModel model, List<VisitorCount> visitors) {
+        model.setRowCount(0);
+        for (int i = 0; i < visitors.size(); i++) {
+            model.addRow(new Object[]{i + 1, visitors.get(i).key(), visitors.get(i).visits()});
         }
+    }
 
+    private JComponent createReportPanel_History(HistoryTableModel model) {
+        JPanel content = new JPanel(new BorderLayout(10, 10));
+        content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        // No row sorter: sorting would read every page and defeat the paging
         JTable table = new JTable(model);
         styleTable(table);
         table.setRowHeight(25);
@@ -1220,34 +2271,20 @@ public class SmartParkingGUI extends JFrame {
             table.getColumnModel().getColumn(i).setPreferredWidth(widths[i]);
         }
 
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(model);
-        table.setRowSorter(sorter);
-
+        JLabel countLabel = new JLabel(String.format("%,d completed sessions, newest first", model.getRowCount()));
+        countLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        content.add(countLabel, BorderLayout.NORTH);
         content.add(new JScrollPane(table), BorderLayout.CENTER);
         return content;
     }
 
-    private JComponent createReportPanel_FloorAnalysis() {
+    private JComponent createReportPanel_FloorAnalysis(FloorReport report) {
         JPanel content = new JPanel(new BorderLayout(10, 10));
         content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 
-        // Calculate floor statistics
-        Map<Integer, Integer> floorCapacity = new HashMap<>();
-        Map<Integer, Integer> floorOccupied = new HashMap<>();
-        Map<Integer, Double> floorRevenue = new HashMap<>();
-
-        for (ParkingSpot spot : manager.getSpots()) {
-            int floor = spot.getFloor();
-            floorCapacity.put(floor, floorCapacity.getOrDefault(floor, 0) + 1);
-            if (!spot.isAvailable()) {
-                floorOccupied.put(floor, floorOccupied.getOrDefault(floor, 0) + 1);
-            }
-        }
-
-        for (Ticket ticket : manager.getTicketHistory()) {
-            int floor = ticket.getSpot().getFloor();
-            floorRevenue.put(floor, floorRevenue.getOrDefault(floor, 0.0) + ticket.getChargesPaid());
-        }
+        Map<Integer, Integer> floorCapacity = report.floorCapacity();
+        Map<Integer, Integer> floorOccupied = report.floorOccupied();
+        Map<Integer, Double> floorRevenue = report.floorRevenue();
 
         // Create floor statistics table
         String[] cols = {"Floor", "Total Spots", "Occupied", "Available", "Occupancy Rate", "Revenue (" + CURRENCY_SYMBOL + ")"};
@@ -1255,7 +2292,7 @@ public class SmartParkingGUI extends JFrame {
             @Override public boolean isCellEditable(int r, int c) { return false; }
         };
 
-        for (int floor = 1; floor <= FLOORS; floor++) {
+        for (int floor = 1; floor <= floors; floor++) {
             int capacity = floorCapacity.getOrDefault(floor, 0);
             int occupied = floorOccupied.getOrDefault(floor, 0);
             int available = capacity - occupied;
@@ -1276,23 +2313,75 @@ public class SmartParkingGUI extends JFrame {
         styleTable(table);
         table.setRowHeight(30);
 
-        content.add(new JScrollPane(table), BorderLayout.CENTER);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(600, 30 * floors + 30));
+        content.add(tableScroll, BorderLayout.NORTH);
+        content.add(createOccupancyChartPanel(report.floorHistory()), BorderLayout.CENTER);
 
         // Add recommendation based on floor occupancy
-        JPanel recommendationPanel = createRecommendationPanel(floorCapacity, floorOccupied);
+        JPanel recommendationPanel = createRecommendationPanel(floorCapacity, floorOccupied, report.forecasts());
         content.add(recommendationPanel, BorderLayout.SOUTH);
 
         return content;
     }
 
-    private JPanel createRecommendationPanel(Map<Integer, Integer> floorCapacity, Map<Integer, Integer> floorOccupied) {
+    private JPanel createOccupancyChartPanel(OccupancyWindow[] initial) {
+        String[] names = new String[floors];
+        for (int floor = 1; floor <= floors; floor++) {
+            names[floor - 1] = "Floor " + floor;
+        }
+        int largestFloor = 0;
+        for (int floor = 1; floor <= floors; floor++) {
+            largestFloor = Math.max(largestFloor, manager.getLayout().floorSize(floor));
+        }
+        float floorCapacity = largestFloor;
+
+        OccupancyChart chart = new OccupancyChart();
+        chart.setSeries(names, initial, floorCapacity);
+
+        OccupancyTimeSeries.Resolution[] resolutions = OccupancyTimeSeries.Resolution.values();
+        JComboBox<String> range = new JComboBox<>(new String[]{
+                "Last hour (per second)", "Last week (per minute)", "Last year (per hour)"});
+        range.addActionListener(_ -> {
+            OccupancyTimeSeries.Resolution resolution = resolutions[range.getSelectedIndex()];
+            new SwingWorker<OccupancyWindow[], Void>() {
+                @Override
+                protected OccupancyWindow[] doInBackground() {
+                    return readFloorHistory(resolution);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        chart.setSeries(names, get(), floorCapacity);
+                    } catch (Exception e) {
+                        logMessage("Failed to load occupancy history: " + e.getMessage(), "ERROR-UI");
+                    }
+                }
+            }.execute();
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.setOpaque(false);
+        controls.add(new JLabel("Occupancy over:"));
+        controls.add(range);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Occupancy History"));
+        panel.add(controls, BorderLayout.NORTH);
+        panel.add(chart, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private JPanel createRecommendationPanel(Map<Integer, Integer> floorCapacity, Map<Integer, Integer> floorOccupied,
+                                             FloorForecast[] forecasts) {
         JPanel recommendationPanel = new JPanel(new BorderLayout());
         recommendationPanel.setBorder(BorderFactory.createTitledBorder("Recommendations"));
         recommendationPanel.setBackground(Color.WHITE);
 
         StringBuilder recommendations = new StringBuilder("<html><b>Parking Recommendations:</b><ul>");
 
-        for (int floor = 1; floor <= FLOORS; floor++) {
+        for (int floor = 1; floor <= floors; floor++) {
             int capacity = floorCapacity.getOrDefault(floor, 0);
             int occupied = floorOccupied.getOrDefault(floor, 0);
             double occupancyRate = capacity > 0 ? (occupied * 100.0 / capacity) : 0.0;
@@ -1304,6 +2393,25 @@ public class SmartParkingGUI extends JFrame {
             }
         }
 
+        recommendations.append("</ul><b>Outlook:</b><ul>");
+        for (int floor = 1; floor <= floors; floor++) {
+            FloorForecast forecast = forecasts[floor - 1];
+            recommendations.append("<li>Floor ").append(floor).append(": ")
+                    .append(forecast.getFreeNow()).append(" free now");
+            for (int i = 0; i < OccupancyForecaster.HORIZON_MINUTES.length; i++) {
+                recommendations.append(i == 0 ? " → ~" : ", ~").append(forecast.getFreeAhead(i))
+                        .append(" in ").append(OccupancyForecaster.HORIZON_MINUTES[i]).append(" min");
+            }
+            long toFull = forecast.getSecondsToFull();
+            if (toFull == 0) {
+                recommendations.append(" · <font color='red'>full</font>");
+            } else if (toFull > 0) {
+                recommendations.append(toFull < 30 * 60 ? " · <font color='red'>" : " · <font color='#e67e22'>")
+                        .append("full in ~").append(formatDuration(Math.max(1, toFull / 60))).append("</font>");
+            }
+            recommendations.append(String.format(" <font color='gray'>(%.0f in / %.0f out per hour)</font></li>",
+                    forecast.getArrivalsPerHour(), forecast.getDeparturesPerHour()));
+        }
         recommendations.append("</ul></html>");
 
         JLabel recommendationLabel = new JLabel(recommendations.toString());
@@ -1352,7 +2460,7 @@ public class SmartParkingGUI extends JFrame {
     static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             try {
-                new SmartParkingGUI();
+                new SmartParkingGUI(args.length > 0 ? Path.of(args[0]) : null);
             } catch (Exception e) {
                 LOGGER.log(Level.SEVERE, "FATAL ERROR DURING GUI INITIALIZATION", e);
                 JOptionPane.showMessageDialog(null,
@@ -1,8 +1,16 @@
 import java.time.*;
 import java.util.*;
 import java.awt.Color;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.*;
 
 class ParkingLotException extends RuntimeException {
@@ -35,6 +43,12 @@ class VehicleNotFoundException extends ParkingLotException {
     }
 }
 
+class SpotNotFoundException extends ParkingLotException {
+    public SpotNotFoundException(String spot) {
+        super("No parking spot " + spot);
+    }
+}
+
 class DeadlockPreventionException extends ParkingLotException {
     public DeadlockPreventionException(String message) {
         super(message);
@@ -72,18 +86,42 @@ enum VehicleType {
 }
 
 interface Chargeable {
+    double ENERGY_RATE_PER_KWH = 25.0;
+
     double calculateCharges(long durationMinutes, VehicleType type);
+
+    /**
+     * Charge for energy delivered by an EV charger, billed on top of the stay
+     */
+    default double calculateEnergyCharges(double energyKwh) {
+        return energyKwh > 0 ? Math.round(energyKwh * ENERGY_RATE_PER_KWH) : 0;
+    }
+}
+
+/**
+ * Synchronous state-change hook. Invoked while the affected spot is still locked,
+ * so events for the same spot, ticket or plate arrive in the order they happened.
+ * Implementations must be quick and must not call back into the simulator.
+ */
+interface ParkingEventListener {
+    default void onVehicleParked(Ticket ticket) {
+    }
+
+    default void onVehicleReleased(Ticket ticket) {
+    }
 }
 
 abstract class Vehicle {
     private final String licensePlate;
+    private final long plateKey;
     private final LocalDateTime entryTime;
     private final VehicleType vehicleType;
     private final String ownerId;
 
-    public Vehicle(String licensePlate, VehicleType vehicleType, String ownerId) {
-        this.licensePlate = licensePlate.toUpperCase().trim();
-        this.entryTime = LocalDateTime.now();
+    public Vehicle(String licensePlate, VehicleType vehicleType, String ownerId, LocalDateTime entryTime) {
+        this.licensePlate = normalizePlate(licensePlate);
+        this.plateKey = PlateKey.encode(this.licensePlate);
+        this.entryTime = entryTime;
         this.vehicleType = vehicleType;
         this.ownerId = ownerId != null && !ownerId.trim().isEmpty() ? ownerId.trim() : "Anonymous";
     }
@@ -92,6 +130,13 @@ abstract class Vehicle {
         return licensePlate;
     }
 
+    /**
+     * The plate packed into a long for primitive-keyed lookups, or PlateKey.NOT_PACKABLE
+     */
+    public long getPlateKey() {
+        return plateKey;
+    }
+
     public LocalDateTime getEntryTime() {
         return entryTime;
     }
@@ -103,55 +148,128 @@ abstract class Vehicle {
     public String getOwnerId() {
         return ownerId;
     }
+
+    /**
+     * Canonical form used for every plate-keyed lookup (registry, federation routing)
+     */
+    public static String normalizePlate(String licensePlate) {
+        return licensePlate.toUpperCase().trim();
+    }
 }
 
 class Car extends Vehicle {
-    public Car(String licensePlate, String ownerId) {
-        super(licensePlate, VehicleType.CAR, ownerId);
+    public Car(String licensePlate, String ownerId, LocalDateTime entryTime) {
+        super(licensePlate, VehicleType.CAR, ownerId, entryTime);
     }
 }
 
 class Bike extends Vehicle {
-    public Bike(String licensePlate, String ownerId) {
-        super(licensePlate, VehicleType.BIKE, ownerId);
+    public Bike(String licensePlate, String ownerId, LocalDateTime entryTime) {
+        super(licensePlate, VehicleType.BIKE, ownerId, entryTime);
     }
 }
 
 class ElectricCar extends Vehicle {
-    public ElectricCar(String licensePlate, String ownerId) {
-        super(licensePlate, VehicleType.ELECTRIC_CAR, ownerId);
+    public ElectricCar(String licensePlate, String ownerId, LocalDateTime entryTime) {
+        super(licensePlate, VehicleType.ELECTRIC_CAR, ownerId, entryTime);
     }
 }
 
 class SUV extends Vehicle {
-    public SUV(String licensePlate, String ownerId) {
-        super(licensePlate, VehicleType.SUV, ownerId);
+    public SUV(String licensePlate, String ownerId, LocalDateTime entryTime) {
+        super(licensePlate, VehicleType.SUV, ownerId, entryTime);
     }
 }
 
 class Truck extends Vehicle {
-    public Truck(String licensePlate, String ownerId) {
-        super(licensePlate, VehicleType.TRUCK, ownerId);
+    public Truck(String licensePlate, String ownerId, LocalDateTime entryTime) {
+        super(licensePlate, VehicleType.TRUCK, ownerId, entryTime);
+    }
+}
+
+/**
+ * One bit per spot of a lot, set while the spot is occupied. Bits of
+ * different spots share words, so updates are atomic read-modify-writes.
+ */
+final class OccupancyBits {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final int size;
+
+    OccupancyBits(int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    boolean get(int index) {
+        return ((long) WORDS.getVolatile(words, index >>> 6) & (1L << (index & 63))) != 0;
+    }
+
+    void set(int index, boolean occupied) {
+        long bit = 1L << (index & 63);
+        if (occupied) {
+            WORDS.getAndBitwiseOr(words, index >>> 6, bit);
+        } else {
+            WORDS.getAndBitwiseAnd(words, index >>> 6, ~bit);
+        }
+    }
+
+    /**
+     * Occupied spots in [from, to)
+     */
+    int count(int from, int to) {
+        int count = 0;
+        for (int w = from >>> 6; w <= (to - 1) >>> 6 && from < to; w++) {
+            long word = (long) WORDS.getVolatile(words, w);
+            if (w == from >>> 6) word &= -1L << (from & 63);
+            if (w == (to - 1) >>> 6 && (to & 63) != 0) word &= -1L >>> (64 - (to & 63));
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Copy the words into bits, which must hold (size + 63) / 64 longs
+     */
+    void copyTo(long[] bits) {
+        for (int w = 0; w < words.length; w++) {
+            bits[w] = (long) WORDS.getVolatile(words, w);
+        }
+    }
+
+    int size() {
+        return size;
     }
 }
 
+/**
+ * View of one bay of a lot. Views are made on first use: the bay's position,
+ * floor and class come from the lot layout, whether it is occupied from the
+ * lot's occupancy bits and what is parked there from the ticket table. Only
+ * the lock and a lazily built ID live in the view, and the lot hands out one
+ * view per bay so the lock is shared by everyone touching the spot.
+ */
 class ParkingSpot {
-    private final String spotId;
+    private final LotLayout layout;
+    private final OccupancyBits occupancy;
+    private final ActiveTicketTable occupants;
+    private final int index;
     private final int floor;
-    private Vehicle vehicle;
-    private boolean isOccupied;
     private final ReentrantLock lock;
-    private final boolean isEntryPoint;
-
-    public ParkingSpot(String spotId, int floor) {
-        this.spotId = spotId;
-        this.floor = floor;
+    private String spotId;
+
+    ParkingSpot(LotLayout layout, OccupancyBits occupancy, ActiveTicketTable occupants, int index) {
+        this.layout = layout;
+        this.occupancy = occupancy;
+        this.occupants = occupants;
+        this.index = index;
+        this.floor = layout.floorOf(index);
         this.lock = new ReentrantLock(true); // Fair lock for deadlock prevention
-        this.isEntryPoint = spotId.endsWith("1") || spotId.endsWith("A"); // Mark entry points
     }
 
     public boolean isAvailable() {
-        return !isOccupied;
+        return !occupancy.get(index);
     }
 
     public boolean tryAcquire() {
@@ -168,36 +286,89 @@ class ParkingSpot {
         }
     }
 
-    public void assignVehicle(Vehicle v) {
-        this.vehicle = v;
-        this.isOccupied = true;
+    /**
+     * Position of the spot in its lot, which is also its ticket-table slot
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void markOccupied() {
+        occupancy.set(index, true);
     }
 
     public void removeVehicle() {
-        this.vehicle = null;
-        this.isOccupied = false;
+        occupancy.set(index, false);
     }
 
+    /**
+     * The parked vehicle, rebuilt from the lot's ticket table, or null
+     */
     public Vehicle getVehicle() {
-        return vehicle;
+        return isAvailable() ? null : occupants.vehicleAt(index);
+    }
+
+    /**
+     * Type of the parked vehicle without building it, or null
+     */
+    public VehicleType getVehicleType() {
+        return isAvailable() ? null : occupants.typeAt(index);
     }
 
     public String getSpotId() {
-        return spotId;
+        String id = spotId;
+        if (id == null) {
+            id = layout.spotId(index);
+            spotId = id; // racy but idempotent
+        }
+        return id;
     }
 
     public int getFloor() {
         return floor;
     }
 
+    public BayClass getBayClass() {
+        return layout.bayClassOf(index);
+    }
+
+    /**
+     * Floor, zone, row and column packed as SpotCoordinates
+     */
+    public long getCoordinates() {
+        return layout.coordinatesOf(index);
+    }
+
+    /**
+     * Name of the spot's zone; "" for an unnamed zone
+     */
+    public String getZone() {
+        return layout.zoneName(getCoordinates());
+    }
+
+    /**
+     * 1-based row within the zone; row 1 is lettered A
+     */
+    public int getRow() {
+        return SpotCoordinates.row(getCoordinates());
+    }
+
+    /**
+     * 1-based column within the row
+     */
+    public int getColumn() {
+        return SpotCoordinates.column(getCoordinates());
+    }
+
     @SuppressWarnings("unused")
     public boolean isEntryPoint() {
-        return isEntryPoint;
+        String id = getSpotId();
+        return id.endsWith("1") || id.endsWith("A"); // Mark entry points
     }
 
     @Override
     public String toString() {
-        return "ParkingSpot{spotId='" + spotId + "', floor=" + floor + ", occupied=" + isOccupied + "}";
+        return "ParkingSpot{spotId='" + getSpotId() + "', floor=" + floor + ", occupied=" + !isAvailable() + "}";
     }
 }
 
@@ -208,21 +379,30 @@ class Ticket {
     private final LocalDateTime entryTime;
     private LocalDateTime exitTime;
     private double chargesPaid;
+    private double energyKwh;
 
-    public Ticket(String ticketId, Vehicle vehicle, ParkingSpot spot) {
+    public Ticket(String ticketId, Vehicle vehicle, ParkingSpot spot, LocalDateTime entryTime) {
         this.ticketId = ticketId;
         this.vehicle = vehicle;
         this.spot = spot;
-        this.entryTime = vehicle.getEntryTime();
+        this.entryTime = entryTime;
     }
 
     public void closeTicket(LocalDateTime exitTime, double charges) {
+        closeTicket(exitTime, charges, 0);
+    }
+
+    public void closeTicket(LocalDateTime exitTime, double charges, double energyKwh) {
         this.exitTime = exitTime;
         this.chargesPaid = charges;
+        this.energyKwh = energyKwh;
     }
 
-    public long getDuration() {
-        return Duration.between(entryTime, exitTime != null ? exitTime : LocalDateTime.now()).toMinutes();
+    /**
+     * Minutes parked: up to the exit for a closed ticket, else up to now on the lot's clock
+     */
+    public long getDuration(LocalDateTime now) {
+        return Duration.between(entryTime, exitTime != null ? exitTime : now).toMinutes();
     }
 
     public String getTicketId() {
@@ -245,6 +425,13 @@ class Ticket {
         return chargesPaid;
     }
 
+    /**
+     * Energy delivered by an EV charger during the stay, in kWh
+     */
+    public double getEnergyKwh() {
+        return energyKwh;
+    }
+
     public LocalDateTime getEntryTime() {
         return entryTime;
     }
@@ -263,160 +450,434 @@ class EnhancedBillingSystem implements Chargeable {
 }
 
 public class SmartParkingLotSimulator {
-    private final List<ParkingSpot> spots = new ArrayList<>();
-    private final Map<String, Ticket> activeTickets = new ConcurrentHashMap<>();
+    private static final int EVENT_BUS_CAPACITY = 1 << 14;
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+
+    private final LotLayout layout;
+    private final OccupancyBits occupancy;
+    private final AtomicReferenceArray<ParkingSpot> spotViews; // filled in as spots are first touched
+    private final ActiveTicketTable activeTickets;
     private final List<Ticket> ticketHistory = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Ticket> closedTickets = new ConcurrentHashMap<>();
     private final Chargeable billingSystem;
-    private final Map<String, Vehicle> vehicleRegistry = new ConcurrentHashMap<>();
-    private final Map<Integer, List<ParkingSpot>> floorMap = new HashMap<>();
-    private int ticketCounter = 1001;
+    private final List<ParkingEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final ParkingEventBus eventBus;
+    private final AtomicInteger ticketCounter = new AtomicInteger(1001);
+
+    // Live counters so dashboards never have to copy spots or tickets to read them
+    private final DoubleAdder totalRevenue = new DoubleAdder();
+    private final AtomicLong stateVersion = new AtomicLong();
+    private final LongAdder claimCollisions = new LongAdder();
+    private final OccupancyTimeSeries occupancyHistory;
+    private final OccupancyForecaster forecaster;
+    private final FrequentVisitors frequentVisitors = new FrequentVisitors();
+    private final UniqueVehicleCounter uniqueVehicles;
+    private final StayPercentiles stayPercentiles;
+    private final ChargingScheduler chargingScheduler;
+    private final Clock clock;
+    private volatile boolean retainClosedTickets = true;
 
     // Deadlock prevention system
     private final DeadlockPreventionSystem deadlockPrevention;
 
     public SmartParkingLotSimulator(int rows, int cols, int floors, Chargeable billingSystem) {
+        this(rows, cols, floors, billingSystem, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock source of exit times and event timestamps; a simulation passes a virtual clock
+     */
+    public SmartParkingLotSimulator(int rows, int cols, int floors, Chargeable billingSystem, Clock clock) {
+        this(LotLayout.grid(rows, cols, floors), billingSystem, clock);
+    }
+
+    public SmartParkingLotSimulator(LotLayout layout, Chargeable billingSystem) {
+        this(layout, billingSystem, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Build a lot on any layout. Spots are not built here: per-spot state is a
+     * bit and a ticket-table slot, and a spot's view and lock are made the first
+     * time something touches it.
+     */
+    public SmartParkingLotSimulator(LotLayout layout, Chargeable billingSystem, Clock clock) {
+        this.layout = layout;
         this.billingSystem = billingSystem;
+        this.clock = clock;
+        this.eventBus = new ParkingEventBus(EVENT_BUS_CAPACITY, clock);
         this.deadlockPrevention = new DeadlockPreventionSystem();
 
-        // Initialize floors
+        int spotCount = layout.getSpotCount();
+        int floors = layout.getFloorCount();
+        occupancy = new OccupancyBits(spotCount);
+        spotViews = new AtomicReferenceArray<>(spotCount);
+        activeTickets = new ActiveTicketTable(spotCount);
+
+        occupancyHistory = new OccupancyTimeSeries(floors);
+        listeners.add(occupancyHistory);
+
+        int[] floorCapacity = new int[floors + 1];
         for (int floor = 1; floor <= floors; floor++) {
-            List<ParkingSpot> floorSpots = new ArrayList<>();
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    String spotId = (char) ('A' + r) + String.valueOf(c + 1) + "F" + floor;
-                    ParkingSpot spot = new ParkingSpot(spotId, floor);
-                    spots.add(spot);
-                    floorSpots.add(spot);
-                }
-            }
-            floorMap.put(floor, floorSpots);
+            floorCapacity[floor] = layout.floorSize(floor);
         }
-
-        System.out.println("Initialized " + floors + " floors with " + spots.size() + " total spots");
+        forecaster = new OccupancyForecaster(floorCapacity);
+        listeners.add(forecaster);
+        listeners.add(frequentVisitors);
+        uniqueVehicles = new UniqueVehicleCounter(floors);
+        listeners.add(uniqueVehicles);
+        stayPercentiles = new StayPercentiles(floors);
+        listeners.add(stayPercentiles);
+        chargingScheduler = ChargingScheduler.forLot(layout);
+        listeners.add(chargingScheduler);
+
+        System.out.println("Initialized " + floors + " floors with " + spotCount + " total spots");
     }
 
-    @SuppressWarnings("unused")
     public Ticket parkVehicle(Vehicle vehicle) {
         return parkVehicleWithFloorPreference(vehicle, 1); // Default to floor 1
     }
 
+    /**
+     * Park from the calling thread's gate; each thread searches its own stretch of a floor first
+     */
     public Ticket parkVehicleWithFloorPreference(Vehicle vehicle, int preferredFloor) {
-        // Check if vehicle already parked
-        if (vehicleRegistry.containsKey(vehicle.getLicensePlate())) {
+        return parkVehicleAtGate(vehicle, preferredFloor, Thread.currentThread().threadId());
+    }
+
+    /**
+     * Park as a particular entry gate. Gates start their spot search at different,
+     * evenly spread offsets on each floor, so concurrent gates rarely race for the same spot.
+     */
+    public Ticket parkVehicleAtGate(Vehicle vehicle, int preferredFloor, long gate) {
+        // Check if vehicle already parked; registering up front stops two gates parking the same plate
+        if (!activeTickets.reserve(vehicle)) {
             throw new VehicleAlreadyParkedException(vehicle.getLicensePlate());
         }
 
         // Try preferred floor first
-        ParkingSpot spot = findAvailableSpotOnFloor(preferredFloor);
+        ParkingSpot spot = findAvailableSpotOnFloor(preferredFloor, gate);
 
         // If preferred floor is full, try other floors
         if (spot == null) {
-            spot = findAvailableSpot();
+            spot = findAvailableSpot(gate);
             if (spot == null) {
+                activeTickets.cancelReservation(vehicle);
+                eventBus.publish(ParkingEventType.LOT_FULL, clock.millis(), null,
+                        vehicle.getLicensePlate(), vehicle.getVehicleType(), null, preferredFloor, 0);
                 throw new ParkingLotFullException();
             }
         }
 
-        // Use deadlock prevention system to safely acquire spot
+        // The finder hands back the spot with its lock held and availability re-checked
         try {
-            deadlockPrevention.acquireSpot(spot);
+            long number = ticketCounter.getAndIncrement();
+            LocalDateTime entryTime = LocalDateTime.now(clock);
+            Ticket ticket = new Ticket(ActiveTicketTable.ticketId(number), vehicle, spot, entryTime);
 
-            spot.assignVehicle(vehicle);
-            String ticketId = "TKT-" + ticketCounter++;
-            Ticket ticket = new Ticket(ticketId, vehicle, spot);
+            activeTickets.occupy(spot.getIndex(), number, vehicle, entryTime);
+            spot.markOccupied();
 
-            activeTickets.put(ticketId, ticket);
-            vehicleRegistry.put(vehicle.getLicensePlate(), vehicle);
-
-            deadlockPrevention.releaseSpot(spot);
+            for (ParkingEventListener listener : listeners) {
+                listener.onVehicleParked(ticket);
+            }
+            stateVersion.incrementAndGet();
+            eventBus.publishParked(ticket);
 
             return ticket;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new ParkingLotException("Parking operation interrupted: " + e.getMessage());
+        } finally {
+            deadlockPrevention.releaseSpot(spot);
         }
     }
 
     public double releaseVehicle(String ticketId) {
-        Ticket ticket = activeTickets.get(ticketId);
-        if (ticket == null)
+        int index = activeTickets.spotOfTicket(ticketId);
+        if (index == ActiveTicketTable.NO_SPOT)
             throw new InvalidTicketException(ticketId);
 
-        ParkingSpot spot = ticket.getSpot();
+        ParkingSpot spot = spotAt(index);
 
         try {
             // Use deadlock prevention for release
-            deadlockPrevention.acquireSpot(spot);
-
-            double charges = billingSystem.calculateCharges(ticket.getDuration(),
-                    ticket.getVehicle().getVehicleType());
+            deadlockPrevention.lockSpot(spot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParkingLotException("Release operation interrupted: " + e.getMessage());
+        }
 
-            ticket.closeTicket(LocalDateTime.now(), charges);
+        try {
+            // Another caller may have released the same ticket while we waited
+            if (activeTickets.spotOfTicket(ticketId) != index)
+                throw new InvalidTicketException(ticketId);
+            Ticket ticket = activeTickets.ticketAt(index, spot);
+
+            LocalDateTime exitTime = LocalDateTime.now(clock);
+            double energyKwh = ticket.getVehicle().getVehicleType() == VehicleType.ELECTRIC_CAR
+                    ? chargingScheduler.finishSession(ticketId, exitTime) : 0;
+            double charges = billingSystem.calculateCharges(
+                    Duration.between(ticket.getEntryTime(), exitTime).toMinutes(),
+                    ticket.getVehicle().getVehicleType())
+                    + billingSystem.calculateEnergyCharges(energyKwh);
+
+            ticket.closeTicket(exitTime, charges, energyKwh);
+            activeTickets.vacate(index);
             spot.removeVehicle();
 
-            activeTickets.remove(ticketId);
-            ticketHistory.add(ticket);
-            vehicleRegistry.remove(ticket.getVehicle().getLicensePlate());
+            totalRevenue.add(charges);
+            if (retainClosedTickets) {
+                ticketHistory.add(ticket);
+                closedTickets.put(ticketId, ticket);
+            }
 
-            deadlockPrevention.releaseSpot(spot);
+            for (ParkingEventListener listener : listeners) {
+                listener.onVehicleReleased(ticket);
+            }
+            stateVersion.incrementAndGet();
+            eventBus.publishReleased(ticket);
 
             return charges;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new ParkingLotException("Release operation interrupted: " + e.getMessage());
+        } finally {
+            deadlockPrevention.releaseSpot(spot);
         }
     }
 
+    /**
+     * Whether ticketId is still open, without building its ticket
+     */
+    public boolean isTicketActive(String ticketId) {
+        return activeTickets.spotOfTicket(ticketId) != ActiveTicketTable.NO_SPOT;
+    }
+
     public Ticket findTicketByLicense(String licensePlate) {
-        for (Ticket ticket : activeTickets.values()) {
-            if (ticket.getVehicle().getLicensePlate().equalsIgnoreCase(licensePlate.trim())) {
-                return ticket;
-            }
-        }
-        throw new VehicleNotFoundException(licensePlate);
+        int index = activeTickets.spotOfPlate(licensePlate);
+        Ticket ticket = index == ActiveTicketTable.NO_SPOT ? null : activeTickets.ticketAt(index, spotAt(index));
+        if (ticket == null)
+            throw new VehicleNotFoundException(licensePlate);
+        return ticket;
     }
 
-    public static Vehicle createVehicle(VehicleType type, String plate, String owner) {
+    /**
+     * Look up an active or closed ticket by ID
+     */
+    public Ticket findTicketById(String ticketId) {
+        int index = activeTickets.spotOfTicket(ticketId);
+        Ticket ticket = index == ActiveTicketTable.NO_SPOT ? null : activeTickets.ticketAt(index, spotAt(index));
+        if (ticket == null)
+            ticket = closedTickets.get(ticketId);
+        if (ticket == null)
+            throw new InvalidTicketException(ticketId);
+        return ticket;
+    }
+
+    public static Vehicle createVehicle(VehicleType type, String plate, String owner, LocalDateTime entryTime) {
         return switch (type) {
-            case CAR -> new Car(plate, owner);
-            case BIKE -> new Bike(plate, owner);
-            case ELECTRIC_CAR -> new ElectricCar(plate, owner);
-            case SUV -> new SUV(plate, owner);
-            case TRUCK -> new Truck(plate, owner);
+            case CAR -> new Car(plate, owner, entryTime);
+            case BIKE -> new Bike(plate, owner, entryTime);
+            case ELECTRIC_CAR -> new ElectricCar(plate, owner, entryTime);
+            case SUV -> new SUV(plate, owner, entryTime);
+            case TRUCK -> new Truck(plate, owner, entryTime);
         };
     }
 
-    private ParkingSpot findAvailableSpotOnFloor(int floor) {
-        List<ParkingSpot> floorSpots = floorMap.get(floor);
-        if (floorSpots == null)
-            return null;
+    /**
+     * Asynchronous, lossy-for-slow-readers feed of park/release notifications
+     */
+    public ParkingEventBus getEventBus() {
+        return eventBus;
+    }
 
-        // Two-way parking algorithm: alternate between entry points
-        boolean startFromLeft = Math.random() > 0.5;
+    public Clock getClock() {
+        return clock;
+    }
 
-        if (startFromLeft) {
-            for (ParkingSpot spot : floorSpots) {
-                if (spot.isAvailable() && spot.tryAcquire()) {
-                    return spot;
-                }
+    /**
+     * When false, closed tickets are not kept for history or lookup; revenue
+     * and the streaming statistics still see every release. Long simulations
+     * turn this off so memory does not grow with the number of visits.
+     */
+    public void setRetainClosedTickets(boolean retainClosedTickets) {
+        this.retainClosedTickets = retainClosedTickets;
+    }
+
+    /**
+     * Per-second/minute/hour occupancy of the lot, each floor and each vehicle type
+     */
+    public OccupancyTimeSeries getOccupancyHistory() {
+        return occupancyHistory;
+    }
+
+    /**
+     * Live arrival/departure rates and time-to-full predictions per floor
+     */
+    public OccupancyForecaster getForecaster() {
+        return forecaster;
+    }
+
+    /**
+     * Most frequent plates and owners over recent days, from fixed-size sketches
+     */
+    public FrequentVisitors getFrequentVisitors() {
+        return frequentVisitors;
+    }
+
+    /**
+     * Approximate distinct vehicles per day, floor and vehicle type
+     */
+    public UniqueVehicleCounter getUniqueVehicles() {
+        return uniqueVehicles;
+    }
+
+    /**
+     * Median/p90/p99 stay duration and charge per floor and vehicle type
+     */
+    public StayPercentiles getStayPercentiles() {
+        return stayPercentiles;
+    }
+
+    /**
+     * Charge point and power allocation for parked electric cars
+     */
+    public ChargingScheduler getChargingScheduler() {
+        return chargingScheduler;
+    }
+
+    /**
+     * Tell the charging scheduler what a parked electric car needs: battery size,
+     * current and target state of charge (0-1) and when the driver expects to leave
+     */
+    public void requestCharge(String ticketId, double batteryKwh, double stateOfCharge,
+                              double targetStateOfCharge, LocalDateTime departure) {
+        chargingScheduler.requestCharge(ticketId, LocalDateTime.now(clock), batteryKwh,
+                stateOfCharge, targetStateOfCharge, departure);
+    }
+
+    public void addEventListener(ParkingEventListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeEventListener(ParkingEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replay a park that happened on another node (replication, journal recovery)
+     * with the entry time that node's clock stamped. Idempotent: a ticket that is
+     * already active is ignored.
+     */
+    public void restorePark(String ticketId, Vehicle vehicle, String spotId, LocalDateTime entryTime) {
+        ParkingSpot spot = getSpot(spotId);
+        if (spot == null)
+            throw new ParkingLotException("Unknown spot in replicated park: " + spotId);
+
+        try {
+            deadlockPrevention.lockSpot(spot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParkingLotException("Restore operation interrupted: " + e.getMessage());
+        }
+
+        try {
+            if (activeTickets.spotOfTicket(ticketId) != ActiveTicketTable.NO_SPOT)
+                return;
+            if (!spot.isAvailable())
+                throw new ParkingLotException("Replicated park into occupied spot " + spotId);
+            long number = ActiveTicketTable.ticketNumber(ticketId);
+            if (number == 0)
+                throw new ParkingLotException("Unsupported ticket id in replicated park: " + ticketId);
+
+            Ticket ticket = new Ticket(ticketId, vehicle, spot, entryTime);
+            activeTickets.occupy(spot.getIndex(), number, vehicle, entryTime);
+            spot.markOccupied();
+            ticketCounter.accumulateAndGet((int) number + 1, Math::max);
+
+            for (ParkingEventListener listener : listeners) {
+                listener.onVehicleParked(ticket);
             }
-        } else {
-            // Start from right (end of list)
-            for (int i = floorSpots.size() - 1; i >= 0; i--) {
-                ParkingSpot spot = floorSpots.get(i);
-                if (spot.isAvailable() && spot.tryAcquire()) {
-                    return spot;
+            stateVersion.incrementAndGet();
+            eventBus.publishParked(ticket);
+        } finally {
+            deadlockPrevention.releaseSpot(spot);
+        }
+    }
+
+    /**
+     * Replay a release that happened on another node. Unknown tickets are ignored.
+     */
+    public void restoreRelease(String ticketId, LocalDateTime exitTime, double charges) {
+        int index = activeTickets.spotOfTicket(ticketId);
+        if (index == ActiveTicketTable.NO_SPOT)
+            return;
+
+        ParkingSpot spot = spotAt(index);
+        try {
+            deadlockPrevention.lockSpot(spot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParkingLotException("Restore operation interrupted: " + e.getMessage());
+        }
+
+        try {
+            if (activeTickets.spotOfTicket(ticketId) != index)
+                return;
+            Ticket ticket = activeTickets.ticketAt(index, spot);
+            double energyKwh = ticket.getVehicle().getVehicleType() == VehicleType.ELECTRIC_CAR
+                    ? chargingScheduler.finishSession(ticketId, exitTime) : 0;
+            ticket.closeTicket(exitTime, charges, energyKwh);
+            activeTickets.vacate(index);
+            spot.removeVehicle();
+            totalRevenue.add(charges);
+            if (retainClosedTickets) {
+                ticketHistory.add(ticket);
+                closedTickets.put(ticketId, ticket);
+            }
+
+            for (ParkingEventListener listener : listeners) {
+                listener.onVehicleReleased(ticket);
+            }
+            stateVersion.incrementAndGet();
+            eventBus.publishReleased(ticket);
+        } finally {
+            deadlockPrevention.releaseSpot(spot);
+        }
+    }
+
+    /**
+     * Where a gate starts searching a floor of the given size. Successive gate
+     * numbers are spread by the golden ratio, so any number of gates stay close
+     * to evenly spaced and each one's stretch runs up to its neighbour's start.
+     */
+    static int gateOffset(long gate, int floorSize) {
+        double position = gate * GOLDEN_RATIO_FRACTION;
+        return (int) ((position - Math.floor(position)) * floorSize);
+    }
+
+    private ParkingSpot findAvailableSpotOnFloor(int floor, long gate) {
+        if (floor < 1 || floor > layout.getFloorCount())
+            return null;
+
+        // Search from this gate's own offset and wrap into the other gates' stretches only when it runs dry
+        int first = layout.floorStart(floor);
+        int size = layout.floorSize(floor);
+        int start = gateOffset(gate, size);
+        for (int n = 0; n < size; n++) {
+            int i = first + (start + n < size ? start + n : start + n - size);
+            if (!occupancy.get(i)) {
+                ParkingSpot spot = spotAt(i);
+                if (spot.tryAcquire()) {
+                    if (spot.isAvailable()) {
+                        return spot;
+                    }
+                    spot.release();
                 }
+                claimCollisions.increment();
             }
         }
 
         return null;
     }
 
-    private ParkingSpot findAvailableSpot() {
-        // Try floors in order, but with two-way approach on each floor
-        for (int floor = 1; floor <= floorMap.size(); floor++) {
-            ParkingSpot spot = findAvailableSpotOnFloor(floor);
+    private ParkingSpot findAvailableSpot(long gate) {
+        for (int floor = 1; floor <= layout.getFloorCount(); floor++) {
+            ParkingSpot spot = findAvailableSpotOnFloor(floor, gate);
             if (spot != null) {
                 return spot;
             }
@@ -424,41 +885,186 @@ public class SmartParkingLotSimulator {
         return null;
     }
 
+    /**
+     * The one view of spot index, made on first use
+     */
+    private ParkingSpot spotAt(int index) {
+        ParkingSpot spot = spotViews.getPlain(index);
+        if (spot == null) {
+            spot = spotViews.get(index);
+        }
+        if (spot == null) {
+            ParkingSpot created = new ParkingSpot(layout, occupancy, activeTickets, index);
+            ParkingSpot raced = spotViews.compareAndExchange(index, null, created);
+            spot = raced != null ? raced : created;
+        }
+        return spot;
+    }
+
     // New methods for multi-floor support
+
+    /**
+     * Spots of a floor as a read-only list; views are made as elements are read
+     */
     public List<ParkingSpot> getSpotsByFloor(int floor) {
-        return new ArrayList<>(floorMap.getOrDefault(floor, new ArrayList<>()));
+        if (floor < 1 || floor > layout.getFloorCount())
+            return List.of();
+        return new SpotRange(layout.floorStart(floor), layout.floorSize(floor));
     }
 
-    @SuppressWarnings("unused")
     public Map<Integer, Integer> getFloorOccupancy() {
-        Map<Integer, Integer> occupancy = new HashMap<>();
-        for (Map.Entry<Integer, List<ParkingSpot>> entry : floorMap.entrySet()) {
-            int floor = entry.getKey();
-            long occupiedCount = entry.getValue().stream()
-                    .filter(spot -> !spot.isAvailable())
-                    .count();
-            occupancy.put(floor, (int) occupiedCount);
+        Map<Integer, Integer> floorOccupancy = new HashMap<>();
+        for (int floor = 1; floor <= layout.getFloorCount(); floor++) {
+            int first = layout.floorStart(floor);
+            floorOccupancy.put(floor, occupancy.count(first, first + layout.floorSize(floor)));
+        }
+        return floorOccupancy;
+    }
+
+    /**
+     * Parked vehicles per type, read from the ticket table without building spots
+     */
+    public Map<VehicleType, Long> getOccupancyByType() {
+        Map<VehicleType, Long> counts = new EnumMap<>(VehicleType.class);
+        for (int index : activeTickets.occupiedSpots()) {
+            VehicleType type = activeTickets.typeAt(index);
+            if (type != null) counts.merge(type, 1L, Long::sum);
         }
-        return occupancy;
+        return counts;
     }
 
     // Getters
+
+    /**
+     * All spots as a read-only list; views are made as elements are read
+     */
     public List<ParkingSpot> getSpots() {
-        return new ArrayList<>(spots);
+        return new SpotRange(0, layout.getSpotCount());
+    }
+
+    /**
+     * Spot with the given ID, or null; O(1) and allocation-free apart from a first-use view
+     */
+    public ParkingSpot getSpot(CharSequence spotId) {
+        int index = layout.indexOf(spotId);
+        return index < 0 ? null : spotAt(index);
+    }
+
+    /**
+     * Spot at a 1-based row and column of a zone ("" for the unnamed zone of a grid floor), or null
+     */
+    public ParkingSpot getSpot(int floor, String zone, int row, int column) {
+        int index = layout.indexAt(floor, zone, row, column);
+        return index < 0 ? null : spotAt(index);
+    }
+
+    public LotLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Whether spot index is occupied, without building its view
+     */
+    public boolean isOccupied(int index) {
+        return occupancy.get(index);
+    }
+
+    /**
+     * Copy the occupancy bitmap (spot i at bit i % 64 of word i / 64) into bits
+     */
+    public void copyOccupancy(long[] bits) {
+        occupancy.copyTo(bits);
     }
 
+    /**
+     * Active tickets keyed by ID. Each call builds fresh Ticket and Vehicle objects
+     * from the ticket table; prefer getActiveTicketIds when only IDs are needed.
+     */
     public Map<String, Ticket> getActiveTickets() {
-        return new HashMap<>(activeTickets);
+        Map<String, Ticket> tickets = new HashMap<>();
+        for (int index : activeTickets.occupiedSpots()) {
+            Ticket ticket = activeTickets.ticketAt(index, spotAt(index));
+            if (ticket != null) tickets.put(ticket.getTicketId(), ticket);
+        }
+        return tickets;
+    }
+
+    public List<String> getActiveTicketIds() {
+        List<String> ids = new ArrayList<>();
+        for (int index : activeTickets.occupiedSpots()) {
+            long number = activeTickets.ticketNumberAt(index);
+            if (number != 0) ids.add(ActiveTicketTable.ticketId(number));
+        }
+        return ids;
     }
 
     public List<Ticket> getTicketHistory() {
         return Collections.unmodifiableList(ticketHistory);
     }
 
+    public int getTicketHistorySize() {
+        return ticketHistory.size();
+    }
+
+    /**
+     * Copy of closed tickets [from, to) in closing order, clamped to the current history length
+     */
+    public List<Ticket> getTicketHistoryRange(int from, int to) {
+        synchronized (ticketHistory) {
+            int end = Math.min(to, ticketHistory.size());
+            if (from >= end) return List.of();
+            return new ArrayList<>(ticketHistory.subList(from, end));
+        }
+    }
+
+    public int getTotalSpotCount() {
+        return layout.getSpotCount();
+    }
+
+    public int getOccupiedSpotCount() {
+        return activeTickets.size();
+    }
+
+    /**
+     * Running total of charges from all closed tickets; O(1)
+     */
     public double getTotalRevenueFromHistory() {
-        return ticketHistory.stream()
-                .mapToDouble(Ticket::getChargesPaid)
-                .sum();
+        return totalRevenue.sum();
+    }
+
+    /**
+     * Times a spot search saw a free spot but lost it to another gate
+     */
+    public long getClaimCollisions() {
+        return claimCollisions.sum();
+    }
+
+    /**
+     * Incremented on every park and release; lets observers skip refreshes when nothing changed
+     */
+    public long getStateVersion() {
+        return stateVersion.get();
+    }
+
+    private final class SpotRange extends AbstractList<ParkingSpot> implements RandomAccess {
+        private final int first;
+        private final int size;
+
+        SpotRange(int first, int size) {
+            this.first = first;
+            this.size = size;
+        }
+
+        @Override
+        public ParkingSpot get(int i) {
+            Objects.checkIndex(i, size);
+            return spotAt(first + i);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 }
 
@@ -476,6 +1082,19 @@ class DeadlockPreventionSystem {
      * Uses resource ordering based on floor and spot ID
      */
     public void acquireSpot(ParkingSpot spot) throws InterruptedException {
+        lockSpot(spot);
+
+        // Verify spot is still available after acquiring lock
+        if (!spot.isAvailable()) {
+            spot.release();
+            throw new ParkingLotException("Spot " + spot.getSpotId() + " was taken while waiting");
+        }
+    }
+
+    /**
+     * Lock a parking spot regardless of its occupancy (used by release)
+     */
+    public void lockSpot(ParkingSpot spot) throws InterruptedException {
         if (spot == null) {
             throw new IllegalArgumentException("Spot cannot be null");
         }
@@ -497,12 +1116,6 @@ class DeadlockPreventionSystem {
             System.out.println("Warning: Slow acquisition for spot " + spot.getSpotId() +
                     " took " + elapsed + "ms");
         }
-
-        // Verify spot is still available after acquiring lock
-        if (!spot.isAvailable()) {
-            spot.release();
-            throw new ParkingLotException("Spot " + spot.getSpotId() + " was taken while waiting");
-        }
     }
 
     /**
@@ -549,9 +1162,9 @@ class DeadlockPreventionSystem {
 
             // Sort spots based on current direction
             sortedSpots.sort((s1, s2) -> {
-                // Extract column number from spot ID (e.g., "A1F1" -> 1)
-                int col1 = extractColumn(s1.getSpotId());
-                int col2 = extractColumn(s2.getSpotId());
+                // Columns come from the layout, so "A12F1" sorts after "A2F1"
+                int col1 = s1.getColumn();
+                int col2 = s2.getColumn();
 
                 return direction ? Integer.compare(col1, col2) : Integer.compare(col2, col1);
             });
@@ -564,18 +1177,5 @@ class DeadlockPreventionSystem {
 
             return path;
         }
-
-        private int extractColumn(String spotId) {
-            // Extract numeric part from spot ID (e.g., "A1F1" -> 1)
-            try {
-                String numericPart = spotId.replaceAll("[^0-9]", "");
-                if (!numericPart.isEmpty()) {
-                    return Integer.parseInt(numericPart.substring(0, 1));
-                }
-            } catch (NumberFormatException e) {
-                // Fallback
-            }
-            return 0;
-        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Quantile sketch with a fixed relative error, in the style of DDSketch.
+ * Positive values fall into logarithmic buckets [gamma^(i-1), gamma^i), so any
+ * quantile is returned within RELATIVE_ACCURACY of the true value; values at or
+ * below MIN_VALUE (free or zero-minute stays) share one zero bucket. Merging two
+ * sketches adds their bucket counts. Memory grows with the log of the value
+ * range, not with the number of values: about 700 buckets span 1 to a million.
+ */
+final class QuantileSketch {
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_VALUE = 1e-3;
+
+    private long[] counts = new long[0];
+    private int offset; // bucket index of counts[0]
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    void add(double value) {
+        if (value <= MIN_VALUE) {
+            zeroCount++;
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+            ensureRange(index, index);
+            counts[index - offset]++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(QuantileSketch other) {
+        if (other.count == 0) return;
+        if (other.counts.length > 0) {
+            ensureRange(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Value at quantile q (0-1), or NaN when empty
+     */
+    double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        long rank = (long) (q * (count - 1));
+        if (rank < zeroCount) return Math.max(min, 0);
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Midpoint of the bucket in relative terms
+                double value = 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+                return Math.clamp(value, min, max);
+            }
+        }
+        return max;
+    }
+
+    private void ensureRange(int lo, int hi) {
+        if (counts.length == 0) {
+            counts = new long[hi - lo + 1];
+            offset = lo;
+            return;
+        }
+        int newLo = Math.min(lo, offset);
+        int newHi = Math.max(hi, offset + counts.length - 1);
+        if (newLo == offset && newHi == offset + counts.length - 1) return;
+        long[] grown = new long[newHi - newLo + 1];
+        System.arraycopy(counts, 0, grown, offset - newLo, counts.length);
+        counts = grown;
+        offset = newLo;
+    }
+
+    QuantileSketch copy() {
+        QuantileSketch c = new QuantileSketch();
+        c.counts = Arrays.copyOf(counts, counts.length);
+        c.offset = offset;
+        c.zeroCount = zeroCount;
+        c.count = count;
+        c.min = min;
+        c.max = max;
+        return c;
+    }
+}
+
+/**
+ * Count and median/p90/p99 of one metric for one series
+ */
+record PercentileSummary(long count, double p50, double p90, double p99) {
+    static PercentileSummary of(QuantileSketch sketch) {
+        return new PercentileSummary(sketch.getCount(),
+                sketch.quantile(0.5), sketch.quantile(0.9), sketch.quantile(0.99));
+    }
+}
+
+/**
+ * Streaming percentiles of stay duration (minutes) and charges for the whole
+ * lot, each floor and each vehicle type.
+ *
+ * Every release adds its duration and charge to the sketches of its series,
+ * so percentile queries cost one walk over a few hundred buckets instead of a
+ * sort over ticket history. Sketches from another lot merge in by series.
+ */
+public class StayPercentiles implements ParkingEventListener {
+    private final StatSeries numbering;
+    private final QuantileSketch[] durations;
+    private final QuantileSketch[] charges;
+
+    public StayPercentiles(int floors) {
+        this.numbering = new StatSeries(floors);
+        int series = numbering.count();
+        this.durations = new QuantileSketch[series];
+        this.charges = new QuantileSketch[series];
+        for (int s = 0; s < series; s++) {
+            durations[s] = new QuantileSketch();
+            charges[s] = new QuantileSketch();
+        }
+    }
+
+    public StatSeries getSeries() {
+        return numbering;
+    }
+
+    @Override
+    public void onVehicleReleased(Ticket ticket) {
+        double minutes = Duration.between(ticket.getEntryTime(), ticket.getExitTime()).toSeconds() / 60.0;
+        record(ticket.getSpot().getFloor(), ticket.getVehicle().getVehicleType(), minutes, ticket.getChargesPaid());
+    }
+
+    private synchronized void record(int floor, VehicleType type, double minutes, double charge) {
+        for (int series : new int[]{StatSeries.TOTAL, floor, numbering.type(type)}) {
+            durations[series].add(minutes);
+            charges[series].add(charge);
+        }
+    }
+
+    public synchronized PercentileSummary getDurationSummary(int series) {
+        return PercentileSummary.of(durations[series]);
+    }
+
+    public synchronized PercentileSummary getChargeSummary(int series) {
+        return PercentileSummary.of(charges[series]);
+    }
+
+    /**
+     * Stay duration in minutes at quantile q, or NaN if the series has no releases
+     */
+    public synchronized double durationQuantile(int series, double q) {
+        return durations[series].quantile(q);
+    }
+
+    public synchronized double chargeQuantile(int series, double q) {
+        return charges[series].quantile(q);
+    }
+
+    /**
+     * Fold another lot's percentiles into this one, series by series as StatSeries.match pairs them
+     */
+    public void merge(StayPercentiles other) {
+        if (other == this) return;
+        QuantileSketch[] theirDurations = new QuantileSketch[other.durations.length];
+        QuantileSketch[] theirCharges = new QuantileSketch[other.charges.length];
+        synchronized (other) {
+            for (int s = 0; s < theirDurations.length; s++) {
+                theirDurations[s] = other.durations[s].copy();
+                theirCharges[s] = other.charges[s].copy();
+            }
+        }
+        synchronized (this) {
+            for (int s = 0; s < theirDurations.length; s++) {
+                int target = numbering.match(other.numbering, s);
+                if (target >= 0) {
+                    mergeSeries(target, s, theirDurations, theirCharges);
+                }
+            }
+        }
+    }
+
+    private void mergeSeries(int series, int source, QuantileSketch[] theirDurations, QuantileSketch[] theirCharges) {
+        durations[series].merge(theirDurations[source]);
+        charges[series].merge(theirCharges[source]);
+    }
+}